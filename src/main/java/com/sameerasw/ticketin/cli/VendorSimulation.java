@@ -31,7 +31,7 @@ public class VendorSimulation implements Runnable {
             try {
                 Thread.sleep(releaseRate * 1000);
                 if (!isSimulating[0]) break;
-                vendorService.releaseTickets(vendor, events.get((int) (Math.random() * events.size())).getId());
+                vendorService.releaseTickets(vendor, events.get((int) (Math.random() * events.size())).getId(), 1);
             } catch (InterruptedException e) {
                 logger.info("Thread interrupted.");
                 Thread.currentThread().interrupt();
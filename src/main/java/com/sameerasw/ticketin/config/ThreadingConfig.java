@@ -0,0 +1,19 @@
+package com.sameerasw.ticketin.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+public class ThreadingConfig {
+
+    // Threads for the app's own background work (purchase batches, WebSocket updates). Virtual when spring.threads.virtual.enabled is set,
+    // which also switches Tomcat request handling and Spring's task executors to virtual threads.
+    @Bean
+    public ThreadFactory workerThreadFactory(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return virtualThreads ? Thread.ofVirtual().name("ticketin-worker-", 0).factory() : Executors.defaultThreadFactory();
+    }
+}
@@ -0,0 +1,51 @@
+package com.sameerasw.ticketin.config;
+
+import com.sameerasw.ticketin.server.admission.AdaptiveConcurrencyLimiter;
+import com.sameerasw.ticketin.server.admission.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean limiterEnabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int retryAfterSeconds;
+
+    public WebMvcConfig(MeterRegistry meterRegistry,
+                        @Value("${ticketin.limiter.enabled:true}") boolean limiterEnabled,
+                        @Value("${ticketin.limiter.initial-limit:20}") int initialLimit,
+                        @Value("${ticketin.limiter.min-limit:4}") int minLimit,
+                        @Value("${ticketin.limiter.max-limit:200}") int maxLimit,
+                        @Value("${ticketin.limiter.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.limiterEnabled = limiterEnabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!limiterEnabled) {
+            return;
+        }
+        // Purchases and releases contend on different rows, so each path adapts its own limit
+        registry.addInterceptor(limiterFor("purchase"))
+                .addPathPatterns("/customers/*/buy/**", "/customers/*/hold/**", "/customers/*/holds/**");
+        registry.addInterceptor(limiterFor("release"))
+                .addPathPatterns("/vendors/*/release");
+    }
+
+    private ConcurrencyLimitInterceptor limiterFor(String endpoint) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(endpoint, initialLimit, minLimit, maxLimit, meterRegistry);
+        return new ConcurrencyLimitInterceptor(limiter, retryAfterSeconds);
+    }
+}
@@ -1,7 +1,9 @@
 package com.sameerasw.ticketin.config;
 
+import com.sameerasw.ticketin.handler.EventSubscriptionWebSocketHandler;
 import com.sameerasw.ticketin.handler.TicketWebSocketHandler;
 import com.sameerasw.ticketin.handler.TicketCountWebSocketHandler;
+import com.sameerasw.ticketin.handler.WaitingRoomWebSocketHandler;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
@@ -13,10 +15,15 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     private final TicketWebSocketHandler ticketWebSocketHandler;
     private final TicketCountWebSocketHandler ticketCountWebSocketHandler;
+    private final WaitingRoomWebSocketHandler waitingRoomWebSocketHandler;
+    private final EventSubscriptionWebSocketHandler eventSubscriptionWebSocketHandler;
 
-    public WebSocketConfig(TicketWebSocketHandler ticketWebSocketHandler, TicketCountWebSocketHandler ticketCountWebSocketHandler) {
+    public WebSocketConfig(TicketWebSocketHandler ticketWebSocketHandler, TicketCountWebSocketHandler ticketCountWebSocketHandler, WaitingRoomWebSocketHandler waitingRoomWebSocketHandler,
+                           EventSubscriptionWebSocketHandler eventSubscriptionWebSocketHandler) {
         this.ticketWebSocketHandler = ticketWebSocketHandler;
         this.ticketCountWebSocketHandler = ticketCountWebSocketHandler;
+        this.waitingRoomWebSocketHandler = waitingRoomWebSocketHandler;
+        this.eventSubscriptionWebSocketHandler = eventSubscriptionWebSocketHandler;
     }
 
     @Override
@@ -25,5 +32,10 @@ public class WebSocketConfig implements WebSocketConfigurer {
                 .setAllowedOrigins("*");
         registry.addHandler(ticketCountWebSocketHandler, "/ws/event/{eventId}/tickets")
                 .setAllowedOrigins("*");
+        registry.addHandler(waitingRoomWebSocketHandler, "/ws/event/{eventId}/queue/{customerId}")
+                .setAllowedOrigins("*");
+        // One connection for any number of events: clients send subscribe/unsubscribe control messages
+        registry.addHandler(eventSubscriptionWebSocketHandler, "/ws/events")
+                .setAllowedOrigins("*");
     }
 }
\ No newline at end of file
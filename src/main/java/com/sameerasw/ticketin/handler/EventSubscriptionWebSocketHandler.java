@@ -0,0 +1,258 @@
+package com.sameerasw.ticketin.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sameerasw.ticketin.server.dto.ActivityDTO;
+import com.sameerasw.ticketin.server.dto.EventFrameDTO;
+import com.sameerasw.ticketin.server.dto.SubscriptionRequestDTO;
+import com.sameerasw.ticketin.server.repository.TicketPoolRepository;
+import com.sameerasw.ticketin.server.notification.EventItemChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class EventSubscriptionWebSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSubscriptionWebSocketHandler.class);
+    private static final String PURCHASES = "purchases";
+    private static final String TICKETS = "tickets";
+
+    // Event ID -> subscribed sessions, one index per stream type. Publishing to an event only touches its own subscribers.
+    private final Map<Long, Set<WebSocketSession>> purchaseSubscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<WebSocketSession>> ticketSubscribers = new ConcurrentHashMap<>();
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Set<Long> changedEvents = ConcurrentHashMap.newKeySet();
+    private final SessionBroadcaster broadcaster;
+    private final TicketPoolRepository ticketPoolRepository;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler;
+    private final boolean pushOnChange;
+    private final int maxSubscriptions;
+    private final long idleTimeoutMillis;
+
+    public EventSubscriptionWebSocketHandler(SessionBroadcaster broadcaster, TicketPoolRepository ticketPoolRepository, ObjectMapper objectMapper,
+                                             ThreadFactory workerThreadFactory, MeterRegistry meterRegistry,
+                                             @Value("${ticketin.ticket-count.push-on-change:true}") boolean pushOnChange,
+                                             @Value("${ticketin.ticket-count.interval-ms:500}") long countIntervalMillis,
+                                             @Value("${ticketin.websocket.max-subscriptions:200}") int maxSubscriptions,
+                                             @Value("${ticketin.websocket.heartbeat-ms:30000}") long heartbeatMillis,
+                                             @Value("${ticketin.websocket.idle-timeout-ms:90000}") long idleTimeoutMillis) {
+        this.broadcaster = broadcaster;
+        this.ticketPoolRepository = ticketPoolRepository;
+        this.objectMapper = objectMapper;
+        this.scheduler = Executors.newScheduledThreadPool(1, workerThreadFactory);
+        this.pushOnChange = pushOnChange;
+        this.maxSubscriptions = maxSubscriptions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        scheduler.scheduleAtFixedRate(this::pushTicketCounts, countIntervalMillis, countIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        Gauge.builder("ticketin.websocket.subscribed-events", purchaseSubscribers, Map::size).tag("stream", PURCHASES).register(meterRegistry);
+        Gauge.builder("ticketin.websocket.subscribed-events", ticketSubscribers, Map::size).tag("stream", TICKETS).register(meterRegistry);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        broadcaster.register(session);
+        subscribers.put(session.getId(), new Subscriber(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        Subscriber subscriber = subscribers.remove(session.getId());
+        if (subscriber != null) {
+            subscriber.purchases.forEach(eventId -> unindex(purchaseSubscribers, eventId, session));
+            subscriber.tickets.forEach(eventId -> unindex(ticketSubscribers, eventId, session));
+        }
+        broadcaster.unregister(session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        // Control messages: {"action": "subscribe" | "unsubscribe" | "ping", "eventIds": [...], "streams": ["purchases", "tickets"]}.
+        Subscriber subscriber = subscribers.get(session.getId());
+        if (subscriber == null) {
+            return;
+        }
+        subscriber.lastSeen = System.currentTimeMillis();
+        SubscriptionRequestDTO request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), SubscriptionRequestDTO.class);
+        } catch (JsonProcessingException e) {
+            broadcaster.send(session, toMessage(EventFrameDTO.error("Malformed control message")));
+            return;
+        }
+        List<String> streams = request.getStreams() == null ? List.of(PURCHASES, TICKETS) : request.getStreams();
+        List<Long> eventIds = request.getEventIds() == null ? List.of() : request.getEventIds();
+        if ("subscribe".equals(request.getAction())) {
+            subscribe(subscriber, eventIds, streams);
+        } else if ("unsubscribe".equals(request.getAction())) {
+            for (Long eventId : eventIds) {
+                if (streams.contains(PURCHASES) && subscriber.purchases.remove(eventId)) {
+                    unindex(purchaseSubscribers, eventId, session);
+                }
+                if (streams.contains(TICKETS) && subscriber.tickets.remove(eventId)) {
+                    unindex(ticketSubscribers, eventId, session);
+                }
+            }
+        } else if (!"ping".equals(request.getAction())) {
+            broadcaster.send(session, toMessage(EventFrameDTO.error("Unknown action: " + request.getAction())));
+        }
+    }
+
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) throws Exception {
+        Subscriber subscriber = subscribers.get(session.getId());
+        if (subscriber != null) {
+            subscriber.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    public void publishPurchase(Long eventId, ActivityDTO activity) {
+        // Called by the purchase feed for every message; a no-op unless some multiplexed session follows the event.
+        Set<WebSocketSession> sessions = purchaseSubscribers.get(eventId);
+        if (sessions != null) {
+            broadcaster.broadcast(sessions, toMessage(EventFrameDTO.purchase(eventId, activity)));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventItemChanged(EventItemChangedEvent event) {
+        if (ticketSubscribers.containsKey(event.getEventItemId())) {
+            changedEvents.add(event.getEventItemId());
+        }
+    }
+
+    private void subscribe(Subscriber subscriber, List<Long> eventIds, List<String> streams) {
+        // Subscriptions per session are capped, which bounds the index at sessions x max-subscriptions entries.
+        WebSocketSession session = subscriber.session;
+        for (Long eventId : eventIds) {
+            if (subscriber.purchases.size() + subscriber.tickets.size() >= maxSubscriptions) {
+                broadcaster.send(session, toMessage(EventFrameDTO.error("Subscription limit of " + maxSubscriptions + " reached")));
+                return;
+            }
+            if (streams.contains(PURCHASES) && subscriber.purchases.add(eventId)) {
+                index(purchaseSubscribers, eventId, session);
+            }
+            if (streams.contains(TICKETS) && subscriber.tickets.add(eventId)) {
+                index(ticketSubscribers, eventId, session);
+                broadcaster.send(session, toMessage(EventFrameDTO.tickets(eventId, getAvailableTickets(eventId))));
+            }
+        }
+        if (!subscribers.containsKey(session.getId())) {
+            // Evicted by the heartbeat while subscribing; drop what was just indexed.
+            subscriber.purchases.forEach(eventId -> unindex(purchaseSubscribers, eventId, session));
+            subscriber.tickets.forEach(eventId -> unindex(ticketSubscribers, eventId, session));
+        }
+    }
+
+    private void pushTicketCounts() {
+        // One count per changed event per interval, fanned out to its subscribers; events nobody follows are never read.
+        try {
+            Iterator<Long> eventIds = pushOnChange ? changedEvents.iterator() : ticketSubscribers.keySet().iterator();
+            while (eventIds.hasNext()) {
+                Long eventId = eventIds.next();
+                if (pushOnChange) {
+                    eventIds.remove();
+                }
+                Set<WebSocketSession> sessions = ticketSubscribers.get(eventId);
+                if (sessions != null) {
+                    broadcaster.broadcast(sessions, toMessage(EventFrameDTO.tickets(eventId, getAvailableTickets(eventId))));
+                }
+            }
+        } catch (Exception e) {
+            // An exception would cancel the fixed-rate task, so it is logged and the next tick tries again.
+            logger.warn("Failed to push ticket counts: {}", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        // Pings every live session and evicts those that have sent nothing, not even a pong, within the idle timeout.
+        try {
+            long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+            PingMessage ping = new PingMessage(ByteBuffer.allocate(0));
+            for (Subscriber subscriber : subscribers.values()) {
+                if (subscriber.lastSeen < idleSince || !subscriber.session.isOpen()) {
+                    evict(subscriber);
+                } else {
+                    broadcaster.send(subscriber.session, ping);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("WebSocket heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void evict(Subscriber subscriber) {
+        logger.debug("Evicting idle WebSocket session {}", subscriber.session.getId());
+        try {
+            afterConnectionClosed(subscriber.session, CloseStatus.SESSION_NOT_RELIABLE);
+            subscriber.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            logger.debug("Failed to close WebSocket session {}: {}", subscriber.session.getId(), e.getMessage());
+        }
+    }
+
+    private static void index(Map<Long, Set<WebSocketSession>> index, Long eventId, WebSocketSession session) {
+        // Per-key compute keeps an add from landing in a set that a concurrent removal is dropping from the index.
+        index.compute(eventId, (id, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+            }
+            sessions.add(session);
+            return sessions;
+        });
+    }
+
+    private static void unindex(Map<Long, Set<WebSocketSession>> index, Long eventId, WebSocketSession session) {
+        index.computeIfPresent(eventId, (id, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    private int getAvailableTickets(Long eventId) {
+        Integer availableTickets = ticketPoolRepository.findAvailableTickets(eventId);
+        return availableTickets == null ? 0 : availableTickets;
+    }
+
+    private TextMessage toMessage(EventFrameDTO frame) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(frame));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise WebSocket frame", e);
+        }
+    }
+
+    private static class Subscriber {
+        private final WebSocketSession session;
+        private final Set<Long> purchases = ConcurrentHashMap.newKeySet();
+        private final Set<Long> tickets = ConcurrentHashMap.newKeySet();
+        private volatile long lastSeen = System.currentTimeMillis();
+
+        private Subscriber(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
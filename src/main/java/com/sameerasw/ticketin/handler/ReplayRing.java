@@ -0,0 +1,47 @@
+package com.sameerasw.ticketin.handler;
+
+import com.sameerasw.ticketin.server.dto.ActivityDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The latest messages of one event stream, numbered from 1. Not thread-safe; callers hold the stream's lock.
+// The array grows with the messages actually appended, so quiet events never pay for the full capacity.
+public class ReplayRing {
+    private static final int INITIAL_SIZE = 16;
+
+    private final int capacity;
+    private ActivityDTO[] entries = new ActivityDTO[0];
+    private long lastSeq;
+
+    public ReplayRing(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public ActivityDTO append(String message, long timestamp) {
+        ActivityDTO entry = new ActivityDTO(++lastSeq, message, timestamp);
+        if (lastSeq >= entries.length && entries.length < capacity) {
+            // Nothing has wrapped yet, so every seq still sits at its own index and a plain copy keeps the layout.
+            entries = Arrays.copyOf(entries, Math.min(capacity, Math.max(INITIAL_SIZE, entries.length * 2)));
+        }
+        entries[(int) (lastSeq % entries.length)] = entry;
+        return entry;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public List<ActivityDTO> since(long seq) {
+        // The messages after seq, or null when some of them have already been overwritten or seq is ahead of this stream.
+        if (seq < 0 || seq > lastSeq || seq < lastSeq - entries.length) {
+            return null;
+        }
+        List<ActivityDTO> missed = new ArrayList<>((int) (lastSeq - seq));
+        for (long next = seq + 1; next <= lastSeq; next++) {
+            missed.add(entries[(int) (next % entries.length)]);
+        }
+        return missed;
+    }
+}
@@ -0,0 +1,181 @@
+package com.sameerasw.ticketin.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class SessionBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(SessionBroadcaster.class);
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final Map<String, OutboundSession> sessions = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor dispatcher;
+    private final ExecutorService senders;
+    private final ExecutorService closer;
+    private final int bufferSize;
+    private final long sendTimeLimitMillis;
+    private final boolean disconnectOnOverflow;
+    private final Counter droppedBroadcasts;
+    private final Counter droppedFrames;
+    private final Counter timedOut;
+    private final Counter overflowed;
+
+    public SessionBroadcaster(ThreadFactory workerThreadFactory, MeterRegistry meterRegistry,
+                              @Value("${ticketin.websocket.dispatch-queue-size:10000}") int dispatchQueueSize,
+                              @Value("${ticketin.websocket.sender-threads:4}") int senderThreads,
+                              @Value("${ticketin.websocket.buffer-size:256}") int bufferSize,
+                              @Value("${ticketin.websocket.send-time-limit-ms:5000}") long sendTimeLimitMillis,
+                              @Value("${ticketin.websocket.overflow:drop}") String overflow) {
+        this.bufferSize = bufferSize;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.disconnectOnOverflow = "disconnect".equalsIgnoreCase(overflow);
+        this.droppedBroadcasts = Counter.builder("ticketin.websocket.dropped").tag("reason", "dispatch-queue-full").register(meterRegistry);
+        this.droppedFrames = Counter.builder("ticketin.websocket.dropped").tag("reason", "buffer-full").register(meterRegistry);
+        this.timedOut = Counter.builder("ticketin.websocket.disconnected").tag("reason", "send-timeout").register(meterRegistry);
+        this.overflowed = Counter.builder("ticketin.websocket.disconnected").tag("reason", "buffer-full").register(meterRegistry);
+        // A single dispatcher keeps broadcasts in publish order; when its queue is full the broadcast is dropped rather than blocking the caller.
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(dispatchQueueSize), workerThreadFactory,
+                (task, executor) -> droppedBroadcasts.increment());
+        this.senders = Executors.newFixedThreadPool(senderThreads, workerThreadFactory);
+        // Closes get their own thread, so evicting a slow session never waits behind the senders it is stalling.
+        this.closer = Executors.newSingleThreadExecutor(workerThreadFactory);
+        Gauge.builder("ticketin.websocket.dispatch-queue", dispatcher, executor -> executor.getQueue().size()).register(meterRegistry);
+        Gauge.builder("ticketin.websocket.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("ticketin.websocket.buffered-frames", this, SessionBroadcaster::getBufferedFrames).register(meterRegistry);
+    }
+
+    public void register(WebSocketSession session) {
+        // The container fails a blocking send that has not completed within the time limit, so a stalled client holds a sender
+        // thread for at most that long instead of until its TCP connection dies.
+        WebSocketSession target = WebSocketSessionDecorator.unwrap(session);
+        if (target instanceof NativeWebSocketSession nativeSession) {
+            jakarta.websocket.Session container = nativeSession.getNativeSession(jakarta.websocket.Session.class);
+            if (container != null) {
+                container.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeLimitMillis);
+            }
+        }
+        sessions.put(session.getId(), new OutboundSession(session, bufferSize));
+    }
+
+    public void unregister(WebSocketSession session) {
+        OutboundSession outbound = sessions.remove(session.getId());
+        if (outbound != null) {
+            outbound.buffer.clear();
+        }
+    }
+
+    public void broadcast(Iterable<WebSocketSession> recipients, WebSocketMessage<?> message) {
+        // Returns straight away: the fan-out runs on the dispatcher, so purchase and release paths never wait on a socket.
+        // The iterator is taken now, so copy-on-write lists deliver to exactly the sessions subscribed at publish time.
+        Iterator<WebSocketSession> sessions = recipients.iterator();
+        dispatcher.execute(() -> sessions.forEachRemaining(session -> send(session, message)));
+    }
+
+    public void send(WebSocketSession session, WebSocketMessage<?> message) {
+        // Queue one frame for a session. A full buffer drops its oldest frame, or disconnects the session when
+        // ticketin.websocket.overflow=disconnect.
+        OutboundSession outbound = sessions.get(session.getId());
+        if (outbound == null) {
+            return;
+        }
+        while (!outbound.buffer.offer(message)) {
+            if (disconnectOnOverflow) {
+                overflowed.increment();
+                disconnect(outbound, "send buffer full");
+                return;
+            }
+            if (outbound.buffer.poll() != null) {
+                droppedFrames.increment();
+            }
+        }
+        if (outbound.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(outbound));
+        }
+    }
+
+    public int getBufferedFrames() {
+        int buffered = 0;
+        for (OutboundSession outbound : sessions.values()) {
+            buffered += outbound.buffer.size();
+        }
+        return buffered;
+    }
+
+    private void drain(OutboundSession outbound) {
+        // At most one sender drains a session at a time, so its frames go out in the order they were queued. A send the
+        // container gave up on leaves the session unusable, so it is disconnected rather than fed the rest of its buffer.
+        do {
+            try {
+                WebSocketMessage<?> message;
+                while ((message = outbound.buffer.poll()) != null) {
+                    if (!outbound.session.isOpen()) {
+                        outbound.buffer.clear();
+                        break;
+                    }
+                    long sendStarted = System.currentTimeMillis();
+                    try {
+                        outbound.session.sendMessage(message);
+                    } catch (Exception e) {
+                        logger.warn("Failed to send WebSocket message to session {}: {}", outbound.session.getId(), e.getMessage());
+                        if (System.currentTimeMillis() - sendStarted >= sendTimeLimitMillis) {
+                            timedOut.increment();
+                        }
+                        disconnect(outbound, "send failed");
+                        break;
+                    }
+                }
+            } finally {
+                outbound.draining.set(false);
+            }
+            // A frame queued after the last poll but before the flag was cleared would otherwise wait for the next send.
+        } while (!outbound.buffer.isEmpty() && outbound.draining.compareAndSet(false, true));
+    }
+
+    private void disconnect(OutboundSession outbound, String reason) {
+        if (sessions.remove(outbound.session.getId(), outbound)) {
+            logger.warn("Disconnecting slow WebSocket session {}: {}", outbound.session.getId(), reason);
+            outbound.buffer.clear();
+            closer.execute(() -> {
+                try {
+                    outbound.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (Exception e) {
+                    logger.debug("Failed to close WebSocket session {}: {}", outbound.session.getId(), e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdown();
+        senders.shutdown();
+        closer.shutdown();
+    }
+
+    private static class OutboundSession {
+        private final WebSocketSession session;
+        private final LinkedBlockingQueue<WebSocketMessage<?>> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private OutboundSession(WebSocketSession session, int bufferSize) {
+            this.session = session;
+            this.buffer = new LinkedBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.sameerasw.ticketin.handler;
 
+import com.sameerasw.ticketin.server.notification.EventItemChangedEvent;
 import com.sameerasw.ticketin.server.service.TicketPoolService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
@@ -14,59 +17,70 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class TicketCountWebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(TicketCountWebSocketHandler.class);
 
-    private final Map<Long, CopyOnWriteArrayList<WebSocketSession>> eventSessions = new ConcurrentHashMap<>();
+    private final Map<Long, EventTicker> tickers = new ConcurrentHashMap<>();
     private final TicketPoolService ticketPoolService;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final SessionBroadcaster broadcaster;
+    private final ScheduledExecutorService scheduler;
+    private final boolean pushOnChange;
+    private final long intervalMillis;
 
-    public TicketCountWebSocketHandler(TicketPoolService ticketPoolService) {
+    public TicketCountWebSocketHandler(TicketPoolService ticketPoolService, SessionBroadcaster broadcaster, ThreadFactory workerThreadFactory,
+                                       @Value("${ticketin.ticket-count.push-on-change:true}") boolean pushOnChange,
+                                       @Value("${ticketin.ticket-count.interval-ms:500}") long intervalMillis) {
         this.ticketPoolService = ticketPoolService;
+        this.broadcaster = broadcaster;
+        this.scheduler = Executors.newScheduledThreadPool(1, workerThreadFactory);
+        this.pushOnChange = pushOnChange;
+        this.intervalMillis = intervalMillis;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // The first viewer of an event starts its ticker; later viewers just join it.
         Long eventId = getEventId(session);
-        eventSessions.computeIfAbsent(eventId, k -> new CopyOnWriteArrayList<>()).add(session);
-        sendCurrentTicketCount(session, eventId);
-        startPeriodicUpdates(eventId);
+        broadcaster.register(session);
+        tickers.compute(eventId, (id, ticker) -> {
+            if (ticker == null) {
+                ticker = new EventTicker(id);
+                ticker.future = scheduler.scheduleAtFixedRate(ticker::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+            ticker.sessions.add(session);
+            return ticker;
+        });
+        broadcaster.send(session, new TextMessage("Available tickets: " + ticketPoolService.getAvailableTickets(eventId)));
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        Long eventId = getEventId(session);
-        eventSessions.getOrDefault(eventId, new CopyOnWriteArrayList<>()).remove(session);
+        // The ticker of an event is stopped with its last viewer.
+        tickers.computeIfPresent(getEventId(session), (id, ticker) -> {
+            ticker.sessions.remove(session);
+            if (!ticker.sessions.isEmpty()) {
+                return ticker;
+            }
+            ticker.future.cancel(false);
+            return null;
+        });
+        broadcaster.unregister(session);
     }
 
-    private void sendCurrentTicketCount(WebSocketSession session, Long eventId) {
-        if (!session.isOpen()) {
-            return;
-        }
-        int availableTickets = 0;
-        var ticketPool = ticketPoolService.getTicketPoolByEventItemId(eventId);
-        if (ticketPool != null) {
-            availableTickets = ticketPool.getAvailableTickets();
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventItemChanged(EventItemChangedEvent event) {
+        // Only marks the event; the ticker sends at most one frame per interval however many sales happened in it.
+        EventTicker ticker = tickers.get(event.getEventItemId());
+        if (ticker != null) {
+            ticker.changed.set(true);
         }
-        try {
-            session.sendMessage(new TextMessage("Available tickets: " + availableTickets));
-        } catch (IllegalStateException e) {
-            logger.warn("WebSocket connection closed due to inactivity or request: {}", e.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void startPeriodicUpdates(Long eventId) {
-        scheduler.scheduleAtFixedRate(() -> {
-            for (WebSocketSession session : eventSessions.getOrDefault(eventId, new CopyOnWriteArrayList<>())) {
-                sendCurrentTicketCount(session, eventId);
-            }
-        }, 5, 5, TimeUnit.SECONDS);
     }
 
     private Long getEventId(WebSocketSession session) {
@@ -74,4 +88,37 @@ public class TicketCountWebSocketHandler extends TextWebSocketHandler {
         String[] parts = uri.split("/");
         return Long.parseLong(parts[parts.length - 2]);
     }
-}
\ No newline at end of file
+
+    private class EventTicker {
+        private final Long eventId;
+        private final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean changed = new AtomicBoolean();
+        private volatile ScheduledFuture<?> future;
+        private int lastSent = -1;
+
+        private EventTicker(Long eventId) {
+            this.eventId = eventId;
+        }
+
+        private void tick() {
+            // The count is read once per event and the same frame is queued for every viewer; slow viewers cannot hold up the ticker.
+            try {
+                if (pushOnChange && !changed.getAndSet(false)) {
+                    return;
+                }
+                int availableTickets = ticketPoolService.getAvailableTickets(eventId);
+                if (pushOnChange && availableTickets == lastSent) {
+                    return;
+                }
+                lastSent = availableTickets;
+                TextMessage message = new TextMessage("Available tickets: " + availableTickets);
+                for (WebSocketSession session : sessions) {
+                    broadcaster.send(session, message);
+                }
+            } catch (Exception e) {
+                // An exception would cancel the fixed-rate task, so it is logged and the next tick tries again.
+                logger.warn("Failed to push ticket count for event {}: {}", eventId, e.getMessage());
+            }
+        }
+    }
+}
@@ -1,46 +1,245 @@
 package com.sameerasw.ticketin.handler;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sameerasw.ticketin.server.dto.ActivityBatchDTO;
+import com.sameerasw.ticketin.server.dto.ActivityDTO;
+import com.sameerasw.ticketin.server.dto.StreamStatusDTO;
+import com.sameerasw.ticketin.server.repository.TicketPoolRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class TicketWebSocketHandler extends TextWebSocketHandler {
 
-    private final Map<Long, CopyOnWriteArrayList<WebSocketSession>> eventSessions = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(TicketWebSocketHandler.class);
+
+    private final Map<Long, EventStream> streams = new ConcurrentHashMap<>();
+    private final SessionBroadcaster broadcaster;
+    private final EventSubscriptionWebSocketHandler subscriptionHandler;
+    private final TicketPoolRepository ticketPoolRepository;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler;
+    private final long batchWindowMillis;
+    private final int replaySize;
+    private final long streamIdleMillis;
+
+    public TicketWebSocketHandler(SessionBroadcaster broadcaster, EventSubscriptionWebSocketHandler subscriptionHandler, TicketPoolRepository ticketPoolRepository, ObjectMapper objectMapper,
+                                  ThreadFactory workerThreadFactory, @Value("${ticketin.websocket.batch-window-ms:100}") long batchWindowMillis,
+                                  @Value("${ticketin.websocket.replay-size:1024}") int replaySize,
+                                  @Value("${ticketin.websocket.stream-idle-ms:300000}") long streamIdleMillis) {
+        this.broadcaster = broadcaster;
+        this.subscriptionHandler = subscriptionHandler;
+        this.ticketPoolRepository = ticketPoolRepository;
+        this.objectMapper = objectMapper;
+        this.scheduler = Executors.newScheduledThreadPool(1, workerThreadFactory);
+        this.batchWindowMillis = batchWindowMillis;
+        this.replaySize = replaySize;
+        this.streamIdleMillis = streamIdleMillis;
+        scheduler.scheduleWithFixedDelay(this::evictIdleStreams, streamIdleMillis, streamIdleMillis, TimeUnit.MILLISECONDS);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // ?format=json sends one sequenced JSON frame per message and ?format=batch conflated JSON batch frames; without it,
+        // sessions keep the plain text frames. JSON sessions first get a status frame with the stream's epoch and sequence number.
         Long eventId = getEventId(session);
-        eventSessions.computeIfAbsent(eventId, k -> new CopyOnWriteArrayList<>()).add(session);
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        String format = params.getFirst("format");
+        // A resuming client's gap frame carries the current count. It is read before the stream's lock is taken, so a reconnect
+        // storm never holds up the purchase path behind a database round trip.
+        boolean sequenced = "batch".equalsIgnoreCase(format) || "json".equalsIgnoreCase(format);
+        int availableTickets = sequenced && params.getFirst("lastSeq") != null ? getAvailableTickets(eventId) : 0;
+        broadcaster.register(session);
+        while (true) {
+            EventStream stream = streams.computeIfAbsent(eventId, EventStream::new);
+            stream.lock.lock();
+            try {
+                if (stream.evicted) {
+                    continue;
+                }
+                if ("batch".equalsIgnoreCase(format)) {
+                    subscribe(session, stream, stream.batchSessions, params, availableTickets);
+                } else if ("json".equalsIgnoreCase(format)) {
+                    subscribe(session, stream, stream.jsonSessions, params, availableTickets);
+                } else {
+                    stream.textSessions.add(session);
+                }
+                return;
+            } finally {
+                stream.lock.unlock();
+            }
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        Long eventId = getEventId(session);
-        eventSessions.getOrDefault(eventId, new CopyOnWriteArrayList<>()).remove(session);
+        EventStream stream = streams.get(getEventId(session));
+        if (stream != null) {
+            stream.textSessions.remove(session);
+            stream.jsonSessions.remove(session);
+            stream.batchSessions.remove(session);
+        }
+        broadcaster.unregister(session);
     }
 
     public void sendMessageToEvent(Long eventId, String message) {
-        for (WebSocketSession session : eventSessions.getOrDefault(eventId, new CopyOnWriteArrayList<>())) {
+        // Hands the message to the broadcaster's dispatcher; callers on the purchase path never block on a subscriber.
+        // Numbering and dispatch happen under the stream's lock, so every subscriber sees the same order.
+        while (true) {
+            EventStream stream = streams.computeIfAbsent(eventId, EventStream::new);
+            stream.lock.lock();
             try {
-                session.sendMessage(new TextMessage(message));
-            } catch (Exception e) {
-                e.printStackTrace();
+                if (stream.evicted) {
+                    // Lost a race with the eviction of an idle stream; the next lookup creates a fresh one.
+                    continue;
+                }
+                stream.lastAppendMillis = System.currentTimeMillis();
+                ActivityDTO activity = stream.ring.append(message, stream.lastAppendMillis);
+                if (!stream.textSessions.isEmpty()) {
+                    broadcaster.broadcast(stream.textSessions, new TextMessage(message));
+                }
+                if (!stream.jsonSessions.isEmpty()) {
+                    broadcaster.broadcast(stream.jsonSessions, toMessage(activity));
+                }
+                subscriptionHandler.publishPurchase(eventId, activity);
+                if (!stream.batchSessions.isEmpty()) {
+                    // The first message of a window schedules its flush; the rest of the window only queues up behind it.
+                    stream.pending.add(activity);
+                    if (stream.scheduled.compareAndSet(false, true)) {
+                        scheduler.schedule(() -> flush(stream), batchWindowMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+                return;
+            } finally {
+                stream.lock.unlock();
+            }
+        }
+    }
+
+    private void subscribe(WebSocketSession session, EventStream stream, List<WebSocketSession> sessions, MultiValueMap<String, String> params,
+                           int availableTickets) {
+        // A reconnecting client passes the epoch and lastSeq it saw last and is sent just the gap from the replay ring.
+        // If the gap is no longer held it gets SNAPSHOT_REQUIRED and reloads the current state over REST once.
+        // Batch sessions may see a replayed message again in the next batch frame; clients skip seqs they already have.
+        // Called with the stream's lock held, so no message is numbered between the replay and the subscription.
+        String lastSeq = params.getFirst("lastSeq");
+        List<ActivityDTO> missed = null;
+        if (lastSeq != null && String.valueOf(stream.epoch).equals(params.getFirst("epoch"))) {
+            try {
+                missed = stream.ring.since(Long.parseLong(lastSeq));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed lastSeq {}", lastSeq);
+            }
+        }
+        String type = lastSeq != null && missed == null ? StreamStatusDTO.SNAPSHOT_REQUIRED : StreamStatusDTO.SUBSCRIBED;
+        broadcaster.send(session, toMessage(new StreamStatusDTO(type, stream.eventId, stream.epoch, stream.ring.getLastSeq())));
+        if (missed != null && !missed.isEmpty()) {
+            // The gap goes out as one batch frame in both formats, so a long replay cannot overflow the session's frame buffer.
+            broadcaster.send(session, toMessage(new ActivityBatchDTO(stream.eventId, availableTickets, missed)));
+        }
+        sessions.add(session);
+    }
+
+    private void flush(EventStream stream) {
+        // One frame per window with the messages in sequence order and the count they left behind. Flushes run on a single thread, so batches stay in order too.
+        stream.scheduled.set(false);
+        List<ActivityDTO> events = new ArrayList<>();
+        ActivityDTO event;
+        while ((event = stream.pending.poll()) != null) {
+            events.add(event);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            ActivityBatchDTO batch = new ActivityBatchDTO(stream.eventId, getAvailableTickets(stream.eventId), events);
+            broadcaster.broadcast(stream.batchSessions, toMessage(batch));
+        } catch (Exception e) {
+            logger.warn("Failed to send activity batch for event {}: {}", stream.eventId, e.getMessage());
+        }
+    }
+
+    private int getAvailableTickets(Long eventId) {
+        Integer availableTickets = ticketPoolRepository.findAvailableTickets(eventId);
+        return availableTickets == null ? 0 : availableTickets;
+    }
+
+    private void evictIdleStreams() {
+        // Drops the streams of events nobody watches and nothing was published to for the idle period, ring and all.
+        // Eviction happens under the stream's lock, and a stream once evicted is never used again, so no session or message lands in a dropped stream.
+        try {
+            long idleSince = System.currentTimeMillis() - streamIdleMillis;
+            for (EventStream stream : streams.values()) {
+                stream.lock.lock();
+                try {
+                    if (stream.lastAppendMillis < idleSince && stream.textSessions.isEmpty() && stream.jsonSessions.isEmpty()
+                            && stream.batchSessions.isEmpty() && stream.pending.isEmpty()) {
+                        stream.evicted = true;
+                        streams.remove(stream.eventId, stream);
+                    }
+                } finally {
+                    stream.lock.unlock();
+                }
             }
+        } catch (Exception e) {
+            logger.warn("Failed to evict idle event streams: {}", e.getMessage());
+        }
+    }
+
+    private TextMessage toMessage(Object frame) {
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(frame));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise WebSocket frame", e);
         }
     }
 
     private Long getEventId(WebSocketSession session) {
-        String uri = session.getUri().toString();
-        String[] parts = uri.split("/");
+        String[] parts = session.getUri().getPath().split("/");
         // Assuming the event ID is always at the 4th position in the URI
         return Long.parseLong(parts[parts.length - 2]);
     }
-}
\ No newline at end of file
+
+    private class EventStream {
+        private final Long eventId;
+        // Sequence numbers restart with the node and with a stream recreated after eviction, so clients resume only when their epoch matches.
+        private final long epoch = System.currentTimeMillis();
+        private final ReplayRing ring = new ReplayRing(replaySize);
+        private final CopyOnWriteArrayList<WebSocketSession> textSessions = new CopyOnWriteArrayList<>();
+        private final CopyOnWriteArrayList<WebSocketSession> jsonSessions = new CopyOnWriteArrayList<>();
+        private final CopyOnWriteArrayList<WebSocketSession> batchSessions = new CopyOnWriteArrayList<>();
+        private final Queue<ActivityDTO> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // A ReentrantLock rather than a monitor, so virtual threads waiting on a busy stream do not pin their carriers.
+        private final ReentrantLock lock = new ReentrantLock();
+        private long lastAppendMillis = System.currentTimeMillis();
+        private boolean evicted;
+
+        private EventStream(Long eventId) {
+            this.eventId = eventId;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.sameerasw.ticketin.handler;
+
+import com.sameerasw.ticketin.server.admission.WaitingRoomService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class WaitingRoomWebSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitingRoomWebSocketHandler.class);
+
+    private final Map<String, Waiter> waiters = new ConcurrentHashMap<>();
+    private final WaitingRoomService waitingRoomService;
+    private final SessionBroadcaster broadcaster;
+    private final ScheduledExecutorService scheduler;
+
+    public WaitingRoomWebSocketHandler(WaitingRoomService waitingRoomService, SessionBroadcaster broadcaster, ThreadFactory workerThreadFactory,
+                                       @Value("${ticketin.waiting-room.push-interval-ms:1000}") long pushIntervalMillis) {
+        this.waitingRoomService = waitingRoomService;
+        this.broadcaster = broadcaster;
+        this.scheduler = Executors.newScheduledThreadPool(1, workerThreadFactory);
+        scheduler.scheduleAtFixedRate(this::pushPositions, pushIntervalMillis, pushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        // The event and customer IDs come from the path; a connection with anything else there is refused.
+        String[] parts = session.getUri().getPath().split("/");
+        Waiter waiter;
+        try {
+            waiter = new Waiter(session, Long.parseLong(parts[parts.length - 3]), Long.parseLong(parts[parts.length - 1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            logger.debug("Rejecting waiting room connection with path {}", session.getUri().getPath());
+            session.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        broadcaster.register(session);
+        waiters.put(session.getId(), waiter);
+        sendPosition(waiter);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        waiters.remove(session.getId());
+        broadcaster.unregister(session);
+    }
+
+    private void pushPositions() {
+        // One pass over the connected buyers per interval, whatever the number of arrivals. Frames are queued on the broadcaster,
+        // so a slow buyer cannot hold up the others.
+        try {
+            for (Waiter waiter : waiters.values()) {
+                sendPosition(waiter);
+            }
+        } catch (Exception e) {
+            // An exception would cancel the fixed-rate task, so it is logged and the next interval tries again.
+            logger.warn("Failed to push queue positions: {}", e.getMessage());
+        }
+    }
+
+    private void sendPosition(Waiter waiter) {
+        long position = waitingRoomService.getPosition(waiter.eventItemId(), waiter.customerId());
+        broadcaster.send(waiter.session(), new TextMessage(position == 0 ? "Admitted" : position < 0 ? "Not in queue" : "Queue position: " + position));
+    }
+
+    private record Waiter(WebSocketSession session, Long eventItemId, Long customerId) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.sameerasw.ticketin.server.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AdaptiveConcurrencyLimiter {
+    private static final double LONG_RTT_WEIGHT = 2.0 / 601; // EWMA over roughly the last 600 samples
+    private static final double SMOOTHING = 0.2;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final Counter rejected;
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile double limit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, MeterRegistry meterRegistry) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        Gauge.builder("ticketin.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit).tag("endpoint", name).register(meterRegistry);
+        Gauge.builder("ticketin.limiter.in-flight", inFlight, AtomicInteger::get).tag("endpoint", name).register(meterRegistry);
+        this.rejected = Counter.builder("ticketin.limiter.rejected").tag("endpoint", name).register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        // Admit the request only while in-flight work is under the current limit; excess load is rejected straight away.
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        // Limit updates are best effort; a sample is skipped rather than making callers queue for the lock.
+        if (!updateLock.tryLock()) {
+            return;
+        }
+        try {
+            if (dropped) {
+                // Errors and timeouts are the clearest overload signal, so back off multiplicatively.
+                limit = Math.max(minLimit, limit * DROP_BACKOFF);
+                return;
+            }
+            longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + LONG_RTT_WEIGHT * (rttNanos - longRttNanos);
+            // Gradient < 1 means latency is rising above its long-term baseline, i.e. requests are queueing.
+            double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / rttNanos));
+            double queueAllowance = Math.sqrt(limit);
+            double newLimit = limit * gradient + queueAllowance;
+            limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+            // After an overload episode latency drops well below the inflated baseline; pull the baseline down faster so the next spike is noticed.
+            if (longRttNanos / rttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
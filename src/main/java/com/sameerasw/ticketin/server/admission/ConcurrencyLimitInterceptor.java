@@ -0,0 +1,47 @@
+package com.sameerasw.ticketin.server.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import static com.sameerasw.ticketin.server.Application.ANSI_RED;
+import static com.sameerasw.ticketin.server.Application.ANSI_RESET;
+import static com.sameerasw.ticketin.cli.Cli.logger;
+
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+    private static final String STARTED_AT = ConcurrencyLimitInterceptor.class.getName() + ".startedAt";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter, int retryAfterSeconds) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Shed load before any work is done so rejected requests cost almost nothing
+        if (!limiter.tryAcquire()) {
+            logger.debug(ANSI_RED + "Rejected " + request.getRequestURI() + ": concurrency limit " + (int) limiter.getLimit() + " reached" + ANSI_RESET);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return false;
+        }
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object startedAt = request.getAttribute(STARTED_AT);
+        if (startedAt == null) {
+            return;
+        }
+        // Server errors count as drops so the limit backs off when the database starts failing, not just slowing down
+        boolean dropped = ex != null || response.getStatus() >= 500;
+        limiter.release(System.nanoTime() - (long) startedAt, dropped);
+    }
+}
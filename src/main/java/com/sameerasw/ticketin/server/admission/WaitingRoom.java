@@ -0,0 +1,80 @@
+package com.sameerasw.ticketin.server.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WaitingRoom {
+    private final Long eventItemId;
+    private final Map<Long, Place> queueNumbers = new ConcurrentHashMap<>();
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+
+    // Token bucket state, only touched by the admission ticker thread
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public WaitingRoom(Long eventItemId, double burst) {
+        this.eventItemId = eventItemId;
+        this.tokens = burst;
+    }
+
+    public long join(Long customerId) {
+        // Joining is idempotent, a customer keeps the queue number they were first given.
+        Place place = queueNumbers.computeIfAbsent(customerId, id -> new Place(issued.incrementAndGet()));
+        place.lastSeenMillis = System.currentTimeMillis();
+        return place.queueNumber;
+    }
+
+    public long getPosition(Long customerId) {
+        // 0 means admitted, -1 means not in the queue. Asking for the position, over REST or the queue socket, keeps the place alive.
+        Place place = queueNumbers.get(customerId);
+        if (place == null) {
+            return -1;
+        }
+        place.lastSeenMillis = System.currentTimeMillis();
+        return Math.max(0, place.queueNumber - admitted.get());
+    }
+
+    public void leave(Long customerId) {
+        queueNumbers.remove(customerId);
+    }
+
+    public long getWaiting() {
+        return issued.get() - admitted.get();
+    }
+
+    void evictIdle(long idleSince) {
+        // Buyers who stopped polling gave up; their places go, so an abandoned room ends up empty and is dropped.
+        queueNumbers.values().removeIf(place -> place.lastSeenMillis < idleSince);
+    }
+
+    public boolean isEmpty() {
+        return queueNumbers.isEmpty();
+    }
+
+    void admit(double ratePerSecond, double burst) {
+        // Refill the bucket for the time passed, then admit one waiting customer per whole token.
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + ratePerSecond * (now - lastRefillNanos) / 1_000_000_000.0);
+        lastRefillNanos = now;
+        long admissions = Math.min((long) tokens, getWaiting());
+        if (admissions > 0) {
+            admitted.addAndGet(admissions);
+            tokens -= admissions;
+        }
+    }
+
+    public Long getEventItemId() {
+        return eventItemId;
+    }
+
+    private static class Place {
+        private final long queueNumber;
+        private volatile long lastSeenMillis;
+
+        private Place(long queueNumber) {
+            this.queueNumber = queueNumber;
+        }
+    }
+}
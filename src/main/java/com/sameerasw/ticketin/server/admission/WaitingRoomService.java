@@ -0,0 +1,84 @@
+package com.sameerasw.ticketin.server.admission;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class WaitingRoomService {
+    private final Map<Long, WaitingRoom> rooms = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final boolean enabled;
+    private final double admissionsPerSecond;
+    private final double burst;
+    private final long idleMillis;
+
+    public WaitingRoomService(ThreadFactory workerThreadFactory,
+                              @Value("${ticketin.waiting-room.enabled:false}") boolean enabled,
+                              @Value("${ticketin.waiting-room.admissions-per-second:50}") double admissionsPerSecond,
+                              @Value("${ticketin.waiting-room.burst:100}") double burst,
+                              @Value("${ticketin.waiting-room.tick-ms:100}") long tickMillis,
+                              @Value("${ticketin.waiting-room.idle-ttl-seconds:300}") long idleSeconds) {
+        this.enabled = enabled;
+        this.admissionsPerSecond = admissionsPerSecond;
+        this.burst = burst;
+        this.idleMillis = TimeUnit.SECONDS.toMillis(idleSeconds);
+        this.scheduler = Executors.newScheduledThreadPool(1, workerThreadFactory);
+        if (enabled) {
+            scheduler.scheduleAtFixedRate(this::admit, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long enter(Long eventItemId, Long customerId) {
+        // Join the event's queue if needed and return the customer's position, 0 once admitted.
+        WaitingRoom room = rooms.computeIfAbsent(eventItemId, id -> new WaitingRoom(id, burst));
+        room.join(customerId);
+        return room.getPosition(customerId);
+    }
+
+    public long getPosition(Long eventItemId, Long customerId) {
+        WaitingRoom room = rooms.get(eventItemId);
+        return room == null ? -1 : room.getPosition(customerId);
+    }
+
+    public void leave(Long eventItemId, Long customerId) {
+        // An admission is good for one purchase; buying again means queueing again.
+        WaitingRoom room = rooms.get(eventItemId);
+        if (room != null) {
+            room.leave(customerId);
+        }
+    }
+
+    public Collection<WaitingRoom> getRooms() {
+        return rooms.values();
+    }
+
+    private void admit() {
+        // Admit customers at the configured rate, evict places gone idle, and drop rooms nobody is in any more.
+        long idleSince = System.currentTimeMillis() - idleMillis;
+        for (WaitingRoom room : rooms.values()) {
+            room.admit(admissionsPerSecond, burst);
+            room.evictIdle(idleSince);
+            if (room.isEmpty()) {
+                rooms.remove(room.getEventItemId(), room);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
@@ -1,22 +1,31 @@
 package com.sameerasw.ticketin.server.controller;
 
+import com.sameerasw.ticketin.server.admission.WaitingRoomService;
+import com.sameerasw.ticketin.server.dto.BulkPurchaseDTO;
 import com.sameerasw.ticketin.server.dto.CustomerDTO;
+import com.sameerasw.ticketin.server.dto.KeysetPage;
 import com.sameerasw.ticketin.server.dto.TicketDTO;
+import com.sameerasw.ticketin.server.dto.TicketHoldDTO;
+import com.sameerasw.ticketin.server.dto.WaitingRoomDTO;
 import com.sameerasw.ticketin.server.model.Customer;
 import com.sameerasw.ticketin.server.service.CustomerService;
 import com.sameerasw.ticketin.server.service.MappingService;
+import com.sameerasw.ticketin.server.service.TicketHoldService;
+import com.sameerasw.ticketin.server.service.WalletService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/customers")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPage.NEXT_CURSOR_HEADER)
 public class CustomerController {
     @Autowired
     private CustomerService customerService;
@@ -24,6 +33,21 @@ public class CustomerController {
     @Autowired
     private MappingService mappingService;
 
+    @Autowired
+    private TicketHoldService ticketHoldService;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Value("${ticketin.purchase.max-bulk-size:10}")
+    private int maxBulkPurchase;
+
+    @Value("${ticketin.pagination.max-size:200}")
+    private int maxPageSize;
+
     // Create a new customer
     @PostMapping
     public ResponseEntity<CustomerDTO> createCustomer(@RequestBody CustomerDTO customerDTO) {
@@ -37,7 +61,7 @@ public class CustomerController {
 
     // Buy a ticket
     @GetMapping("/{customerId}/buy/{eventItemId}")
-    public ResponseEntity<String> purchaseTicket(@PathVariable long customerId, @PathVariable long eventItemId) {
+    public ResponseEntity<?> purchaseTicket(@PathVariable long customerId, @PathVariable long eventItemId) {
         try {
             Customer customer = customerService.getCustomerById(customerId);
             if (customer == null) {
@@ -45,24 +69,144 @@ public class CustomerController {
             } else if (customer.isSimulated()) {
                 return new ResponseEntity<>("Customer is simulated", HttpStatus.BAD_REQUEST);
             }
-            customerService.purchaseTicket(customer, eventItemId);
-            return new ResponseEntity<>("Ticket purchased", HttpStatus.OK);
+            ResponseEntity<?> queued = waitForAdmission(customerId, eventItemId);
+            if (queued != null) {
+                return queued;
+            }
+            try {
+                Long ticketId = customerService.purchaseTicket(customer, eventItemId);
+                if (ticketId == null) {
+                    return new ResponseEntity<>("No tickets available", HttpStatus.CONFLICT);
+                }
+                return new ResponseEntity<>("Ticket purchased", HttpStatus.OK);
+            } finally {
+                // The place is given up on every outcome, so failed and erroring attempts cannot keep a room alive.
+                waitingRoomService.leave(eventItemId, customerId);
+            }
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").body("Tickets are in high demand, please try again");
         } catch (Exception e) {
             return new ResponseEntity<>("Error purchasing ticket", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
-    // Get all purchased tickets
-    @GetMapping("/{customerId}/tickets")
-    public ResponseEntity<List<TicketDTO>> getTickets(@PathVariable long customerId) {
+    // Buy several tickets of an event in one request
+    @GetMapping("/{customerId}/buy/{eventItemId}/bulk")
+    public ResponseEntity<?> purchaseTickets(@PathVariable long customerId, @PathVariable long eventItemId, @RequestParam int ticketCount, @RequestParam(defaultValue = "true") boolean allOrNothing) {
         try {
+            if (ticketCount < 1 || ticketCount > maxBulkPurchase) {
+                return new ResponseEntity<>("Ticket count must be between 1 and " + maxBulkPurchase, HttpStatus.BAD_REQUEST);
+            }
             Customer customer = customerService.getCustomerById(customerId);
             if (customer == null) {
-                return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+                return new ResponseEntity<>("Customer not found", HttpStatus.NOT_FOUND);
+            } else if (customer.isSimulated()) {
+                return new ResponseEntity<>("Customer is simulated", HttpStatus.BAD_REQUEST);
+            }
+            ResponseEntity<?> queued = waitForAdmission(customerId, eventItemId);
+            if (queued != null) {
+                return queued;
+            }
+            try {
+                List<Long> ticketIds = customerService.purchaseTickets(customer, eventItemId, ticketCount, allOrNothing);
+                if (ticketIds.isEmpty()) {
+                    return new ResponseEntity<>("Not enough tickets available", HttpStatus.CONFLICT);
+                }
+                return new ResponseEntity<>(new BulkPurchaseDTO(eventItemId, ticketCount, ticketIds), HttpStatus.OK);
+            } finally {
+                waitingRoomService.leave(eventItemId, customerId);
+            }
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").body("Tickets are in high demand, please try again");
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error purchasing tickets", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Hold a ticket, to be confirmed before the hold expires
+    @GetMapping("/{customerId}/hold/{eventItemId}")
+    public ResponseEntity<?> holdTicket(@PathVariable long customerId, @PathVariable long eventItemId) {
+        try {
+            Customer customer = customerService.getCustomerById(customerId);
+            if (customer == null) {
+                return new ResponseEntity<>("Customer not found", HttpStatus.NOT_FOUND);
+            } else if (customer.isSimulated()) {
+                return new ResponseEntity<>("Customer is simulated", HttpStatus.BAD_REQUEST);
+            }
+            ResponseEntity<?> queued = waitForAdmission(customerId, eventItemId);
+            if (queued != null) {
+                return queued;
+            }
+            try {
+                Long ticketId = ticketHoldService.holdTicket(eventItemId, customer);
+                if (ticketId == null) {
+                    return new ResponseEntity<>("No tickets available", HttpStatus.CONFLICT);
+                }
+                return new ResponseEntity<>(new TicketHoldDTO(ticketId, eventItemId, ticketHoldService.getHoldSeconds()), HttpStatus.OK);
+            } finally {
+                waitingRoomService.leave(eventItemId, customerId);
             }
-            return new ResponseEntity<>(customer.getTickets(), HttpStatus.OK);
         } catch (Exception e) {
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            return new ResponseEntity<>("Error holding ticket", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Confirm a held ticket
+    @GetMapping("/{customerId}/holds/{ticketId}/confirm")
+    public ResponseEntity<String> confirmHold(@PathVariable long customerId, @PathVariable long ticketId) {
+        try {
+            Customer customer = customerService.getCustomerById(customerId);
+            if (customer == null) {
+                return new ResponseEntity<>("Customer not found", HttpStatus.NOT_FOUND);
+            }
+            if (!ticketHoldService.confirmHold(ticketId, customer)) {
+                return new ResponseEntity<>("Hold not found or expired", HttpStatus.CONFLICT);
+            }
+            return new ResponseEntity<>("Ticket purchased", HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error confirming ticket", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Cancel a held ticket
+    @GetMapping("/{customerId}/holds/{ticketId}/cancel")
+    public ResponseEntity<String> cancelHold(@PathVariable long customerId, @PathVariable long ticketId) {
+        try {
+            Customer customer = customerService.getCustomerById(customerId);
+            if (customer == null) {
+                return new ResponseEntity<>("Customer not found", HttpStatus.NOT_FOUND);
+            }
+            if (!ticketHoldService.cancelHold(ticketId, customer)) {
+                return new ResponseEntity<>("Hold not found", HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>("Hold cancelled", HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>("Error cancelling hold", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Get all purchased tickets, one keyset page at a time; the next page's cursor is returned in the X-Next-Cursor header
+    @GetMapping("/{customerId}/tickets")
+    public ResponseEntity<List<TicketDTO>> getTickets(@PathVariable long customerId, @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "${ticketin.pagination.default-size:50}") int size) {
+        try {
+            KeysetPage<TicketDTO> page = walletService.getWallet(customerId, KeysetPage.decodeCursor(cursor), KeysetPage.clampSize(size, maxPageSize));
+            if (page == null) {
+                return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(page.getItems(), page.getHeaders(), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private ResponseEntity<?> waitForAdmission(long customerId, long eventItemId) {
+        // With the waiting room on, buyers are let through at the admission rate and everyone else gets their queue position.
+        // Only known customers get this far, so made-up IDs cannot take places in the queue.
+        if (!waitingRoomService.isEnabled()) {
+            return null;
         }
+        long position = waitingRoomService.enter(eventItemId, customerId);
+        return position > 0 ? new ResponseEntity<>(new WaitingRoomDTO(eventItemId, position), HttpStatus.ACCEPTED) : null;
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,28 @@
 package com.sameerasw.ticketin.server.controller;
 
 import com.sameerasw.ticketin.server.dto.EventItemDTO;
+import com.sameerasw.ticketin.server.dto.KeysetPage;
 import com.sameerasw.ticketin.server.model.EventItem;
 import com.sameerasw.ticketin.server.model.Vendor;
+import com.sameerasw.ticketin.server.service.EventCatalogService;
 import com.sameerasw.ticketin.server.service.EventService;
 import com.sameerasw.ticketin.server.service.MappingService;
+import com.sameerasw.ticketin.server.service.TicketPoolService;
 import com.sameerasw.ticketin.server.service.VendorService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.sameerasw.ticketin.cli.Cli.logger;
 
 @RestController
 @RequestMapping("/events")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPage.NEXT_CURSOR_HEADER)
 public class EventController {
     @Autowired
     private EventService eventService;
@@ -29,6 +33,15 @@ public class EventController {
     @Autowired
     private VendorService vendorService;
 
+    @Autowired
+    private EventCatalogService eventCatalogService;
+
+    @Autowired
+    private TicketPoolService ticketPoolService;
+
+    @Value("${ticketin.pagination.max-size:200}")
+    private int maxPageSize;
+
     // Create a new event
     @PostMapping
     public ResponseEntity<?> createEvent(@RequestBody EventItemDTO eventItemDTO) {
@@ -49,32 +62,42 @@ public class EventController {
     }
 
     // Get all events
+    // Lists are paged by event id; the next page's cursor is returned in the X-Next-Cursor header
     @GetMapping("/list")
-    public ResponseEntity<List<EventItemDTO>> getAllEvents() {
-        List<EventItemDTO> events = eventService.getAllEvents(false)
-                .stream()
-                .map(mappingService::mapToEventItemDTO)
-                .collect(Collectors.toList());
-        return new ResponseEntity<>(events, HttpStatus.OK);
+    public ResponseEntity<List<EventItemDTO>> getAllEvents(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "${ticketin.pagination.default-size:50}") int size) {
+        try {
+            KeysetPage<EventItemDTO> page = eventCatalogService.getAllEvents(false, KeysetPage.decodeCursor(cursor), KeysetPage.clampSize(size, maxPageSize));
+            return new ResponseEntity<>(page.getItems(), page.getHeaders(), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
     }
 
     // Get all events by vendor
     @GetMapping("/{vendorId}/list")
-    public ResponseEntity<List<EventItemDTO>> getVendorEvents(@PathVariable long vendorId) {
-        List<EventItemDTO> events = eventService.getVendorEvents(vendorId)
-                .stream()
-                .map(mappingService::mapToEventItemDTO)
-                .collect(Collectors.toList());
-        return new ResponseEntity<>(events, HttpStatus.OK);
+    public ResponseEntity<List<EventItemDTO>> getVendorEvents(@PathVariable long vendorId, @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "${ticketin.pagination.default-size:50}") int size) {
+        try {
+            KeysetPage<EventItemDTO> page = eventCatalogService.getVendorEvents(vendorId, KeysetPage.decodeCursor(cursor), KeysetPage.clampSize(size, maxPageSize));
+            return new ResponseEntity<>(page.getItems(), page.getHeaders(), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
     }
 
     // Get specific event by ID
     @GetMapping("/{eventId}")
-    public ResponseEntity<EventItemDTO> getEventById(@PathVariable long eventId) {
-        EventItem eventItem = eventService.getEventById(eventId);
+    public ResponseEntity<EventItemDTO> getEventById(@PathVariable long eventId, WebRequest request) {
+        // Polls are revalidated against the pool's change version, one ticket_pool row, and answered with 304 while nothing changed.
+        Long version = ticketPoolService.getChangeVersion(eventId);
+        if (version != null && request.checkNotModified("\"event-" + eventId + "-" + version + "\"")) {
+            return null;
+        }
+        EventItemDTO eventItem = version == null ? eventCatalogService.getEvent(eventId) : eventCatalogService.getEvent(eventId, version);
         if (eventItem == null) {
             return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<>(mappingService.mapToEventItemDTO(eventItem), HttpStatus.OK);
+        return ResponseEntity.ok().eTag("\"event-" + eventId + "-" + eventItem.getVersion() + "\"").body(eventItem);
     }
 }
\ No newline at end of file
@@ -1,41 +1,81 @@
 package com.sameerasw.ticketin.server.controller;
 
+import com.sameerasw.ticketin.server.dto.KeysetPage;
 import com.sameerasw.ticketin.server.dto.TicketDTO;
-import com.sameerasw.ticketin.server.service.MappingService;
+import com.sameerasw.ticketin.server.service.TicketExportService;
 import com.sameerasw.ticketin.server.service.TicketService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/tickets")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPage.NEXT_CURSOR_HEADER)
 public class TicketController {
     @Autowired
     private TicketService ticketService;
 
     @Autowired
-    private MappingService mappingService;
+    private TicketExportService ticketExportService;
 
+    @Value("${ticketin.pagination.max-size:200}")
+    private int maxPageSize;
+
+    // Lists are paged by ticket id; the next page's cursor is returned in the X-Next-Cursor header
     @GetMapping("/events/{eventId}")
-    public ResponseEntity<List<TicketDTO>> getTicketsByEventId(@PathVariable Long eventId) {
-        List<TicketDTO> tickets = ticketService.getTicketsByEventId(eventId)
-                .stream()
-                .map(mappingService::mapToTicketDTO)
-                .collect(Collectors.toList());
-        return tickets != null ? new ResponseEntity<>(tickets, HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    public ResponseEntity<List<TicketDTO>> getTicketsByEventId(@PathVariable Long eventId, @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "${ticketin.pagination.default-size:50}") int size) {
+        try {
+            KeysetPage<TicketDTO> page = ticketService.getTicketsByEventId(eventId, KeysetPage.decodeCursor(cursor), KeysetPage.clampSize(size, maxPageSize));
+            return new ResponseEntity<>(page.getItems(), page.getHeaders(), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
     }
 
     @GetMapping("/list")
-    public ResponseEntity<List<TicketDTO>> getAllTickets() {
-        List<TicketDTO> tickets = ticketService.getAllTickets()
-                .stream()
-                .map(mappingService::mapToTicketDTO)
-                .collect(Collectors.toList());
-        return tickets != null ? new ResponseEntity<>(tickets, HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    public ResponseEntity<List<TicketDTO>> getAllTickets(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "${ticketin.pagination.default-size:50}") int size) {
+        try {
+            KeysetPage<TicketDTO> page = ticketService.getAllTickets(KeysetPage.decodeCursor(cursor), KeysetPage.clampSize(size, maxPageSize));
+            return new ResponseEntity<>(page.getItems(), page.getHeaders(), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Full dumps for reconciliation, streamed row by row as NDJSON (default) or CSV
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTickets(@RequestParam(defaultValue = "ndjson") String format) {
+        return export(null, format);
+    }
+
+    @GetMapping("/events/{eventId}/export")
+    public ResponseEntity<StreamingResponseBody> exportEventTickets(@PathVariable Long eventId, @RequestParam(defaultValue = "ndjson") String format) {
+        return export(eventId, format);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(Long eventId, String format) {
+        String fileName = eventId == null ? "tickets" : "tickets-event-" + eventId;
+        HttpHeaders headers = new HttpHeaders();
+        if ("csv".equalsIgnoreCase(format)) {
+            headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+            headers.setContentDisposition(ContentDisposition.attachment().filename(fileName + ".csv").build());
+            return new ResponseEntity<>(out -> ticketExportService.exportCsv(eventId, out), headers, HttpStatus.OK);
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            headers.setContentType(MediaType.APPLICATION_NDJSON);
+            headers.setContentDisposition(ContentDisposition.attachment().filename(fileName + ".ndjson").build());
+            return new ResponseEntity<>(out -> ticketExportService.exportNdjson(eventId, out), headers, HttpStatus.OK);
+        }
+        return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/ticketpools")
@@ -20,8 +21,15 @@ public class TicketPoolController {
     private MappingService mappingService;
 
     @GetMapping("/{eventItemId}")
-    public ResponseEntity<TicketPoolDTO> getTicketPoolByEventItemId(@PathVariable Long eventItemId) {
+    public ResponseEntity<TicketPoolDTO> getTicketPoolByEventItemId(@PathVariable Long eventItemId, WebRequest request) {
+        // Revalidate against the change version first; the pool is only loaded and mapped when it has changed.
+        Long version = ticketPoolService.getChangeVersion(eventItemId);
+        if (version != null && request.checkNotModified("\"pool-" + eventItemId + "-" + version + "\"")) {
+            return null;
+        }
         TicketPool ticketPool = ticketPoolService.getTicketPoolByEventItemId(eventItemId);
-        return ticketPool != null ? new ResponseEntity<>(mappingService.mapToTicketPoolDTO(ticketPool), HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        return ticketPool != null
+                ? ResponseEntity.ok().eTag("\"pool-" + eventItemId + "-" + ticketPool.getChangeVersion() + "\"").body(mappingService.mapToTicketPoolDTO(ticketPool))
+                : new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.sameerasw.ticketin.server.model.Vendor;
 import com.sameerasw.ticketin.server.service.MappingService;
 import com.sameerasw.ticketin.server.service.VendorService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +24,9 @@ public class VendorController {
     @Autowired
     private MappingService mappingService;
 
+    @Value("${ticketin.release.max-size:100000}")
+    private int maxRelease;
+
     @PostMapping
     public ResponseEntity<VendorDTO> createVendor(@RequestBody VendorDTO vendorDTO) {
         try {
@@ -45,16 +49,17 @@ public class VendorController {
     @GetMapping("/{eventId}/release")
     public ResponseEntity<String> releaseTickets(@PathVariable long eventId, @RequestParam int ticketCount) {
         try {
+            if (ticketCount < 1 || ticketCount > maxRelease) {
+                return new ResponseEntity<>("Ticket count must be between 1 and " + maxRelease, HttpStatus.BAD_REQUEST);
+            }
             Vendor vendor = vendorService.getVendorByEventId(eventId);
             if (vendor == null) {
                 return new ResponseEntity<>("Vendor not found", HttpStatus.NOT_FOUND);
             } else if (vendor.isSimulated()) {
                 return new ResponseEntity<>("Vendor is simulated", HttpStatus.BAD_REQUEST);
             }
-            for (int i = 0; i < ticketCount; i++) {
-                vendorService.releaseTickets(vendor, eventId);
-            }
-            return new ResponseEntity<>("Tickets released", HttpStatus.OK);
+            int released = vendorService.releaseTickets(vendor, eventId, ticketCount);
+            return new ResponseEntity<>(released + " tickets released", HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>("Error releasing tickets", HttpStatus.INTERNAL_SERVER_ERROR);
         }
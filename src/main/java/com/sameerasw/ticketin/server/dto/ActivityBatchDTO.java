@@ -0,0 +1,42 @@
+package com.sameerasw.ticketin.server.dto;
+
+import java.util.List;
+
+public class ActivityBatchDTO {
+    private Long eventId;
+    private int availableTickets;
+    private List<ActivityDTO> events;
+
+    public ActivityBatchDTO() {
+    }
+
+    public ActivityBatchDTO(Long eventId, int availableTickets, List<ActivityDTO> events) {
+        this.eventId = eventId;
+        this.availableTickets = availableTickets;
+        this.events = events;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public int getAvailableTickets() {
+        return availableTickets;
+    }
+
+    public void setAvailableTickets(int availableTickets) {
+        this.availableTickets = availableTickets;
+    }
+
+    public List<ActivityDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<ActivityDTO> events) {
+        this.events = events;
+    }
+}
@@ -0,0 +1,40 @@
+package com.sameerasw.ticketin.server.dto;
+
+public class ActivityDTO {
+    private long seq;
+    private String message;
+    private long timestamp;
+
+    public ActivityDTO() {
+    }
+
+    public ActivityDTO(long seq, String message, long timestamp) {
+        this.seq = seq;
+        this.message = message;
+        this.timestamp = timestamp;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
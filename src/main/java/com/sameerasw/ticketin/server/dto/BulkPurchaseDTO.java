@@ -0,0 +1,42 @@
+package com.sameerasw.ticketin.server.dto;
+
+import java.util.List;
+
+public class BulkPurchaseDTO {
+    private Long eventItemId;
+    private int requestedTickets;
+    private List<Long> ticketIds;
+
+    public BulkPurchaseDTO() {
+    }
+
+    public BulkPurchaseDTO(Long eventItemId, int requestedTickets, List<Long> ticketIds) {
+        this.eventItemId = eventItemId;
+        this.requestedTickets = requestedTickets;
+        this.ticketIds = ticketIds;
+    }
+
+    public Long getEventItemId() {
+        return eventItemId;
+    }
+
+    public void setEventItemId(Long eventItemId) {
+        this.eventItemId = eventItemId;
+    }
+
+    public int getRequestedTickets() {
+        return requestedTickets;
+    }
+
+    public void setRequestedTickets(int requestedTickets) {
+        this.requestedTickets = requestedTickets;
+    }
+
+    public List<Long> getTicketIds() {
+        return ticketIds;
+    }
+
+    public void setTicketIds(List<Long> ticketIds) {
+        this.ticketIds = ticketIds;
+    }
+}
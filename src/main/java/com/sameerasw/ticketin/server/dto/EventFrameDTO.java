@@ -0,0 +1,93 @@
+package com.sameerasw.ticketin.server.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventFrameDTO {
+    public static final String PURCHASE = "purchase";
+    public static final String TICKETS = "tickets";
+    public static final String ERROR = "error";
+
+    private String type;
+    private Long eventId;
+    private Long seq;
+    private String message;
+    private Long timestamp;
+    private Integer availableTickets;
+
+    public EventFrameDTO() {
+    }
+
+    public static EventFrameDTO purchase(Long eventId, ActivityDTO activity) {
+        EventFrameDTO frame = new EventFrameDTO();
+        frame.type = PURCHASE;
+        frame.eventId = eventId;
+        frame.seq = activity.getSeq();
+        frame.message = activity.getMessage();
+        frame.timestamp = activity.getTimestamp();
+        return frame;
+    }
+
+    public static EventFrameDTO tickets(Long eventId, int availableTickets) {
+        EventFrameDTO frame = new EventFrameDTO();
+        frame.type = TICKETS;
+        frame.eventId = eventId;
+        frame.availableTickets = availableTickets;
+        return frame;
+    }
+
+    public static EventFrameDTO error(String message) {
+        EventFrameDTO frame = new EventFrameDTO();
+        frame.type = ERROR;
+        frame.message = message;
+        return frame;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Integer getAvailableTickets() {
+        return availableTickets;
+    }
+
+    public void setAvailableTickets(Integer availableTickets) {
+        this.availableTickets = availableTickets;
+    }
+}
@@ -13,6 +13,28 @@ public class EventItemDTO {
     private String vendorName;
     private Long vendorId;
     private int availableTickets;
+    private long version;
+
+    public EventItemDTO() {
+    }
+
+    // Used by the catalog projection queries in EventRepository
+    public EventItemDTO(Long eventId, String eventName, String eventLocation, String eventDate, String eventTime, double ticketPrice,
+                        String details, String image, Long vendorId, String vendorName, Integer availableTickets, Long version) {
+        this.id = eventId;
+        this.eventId = eventId;
+        this.eventName = eventName;
+        this.eventLocation = eventLocation;
+        this.eventDate = eventDate;
+        this.eventTime = eventTime;
+        this.ticketPrice = ticketPrice;
+        this.details = details;
+        this.image = image;
+        this.vendorId = vendorId;
+        this.vendorName = vendorName;
+        this.availableTickets = availableTickets == null ? 0 : availableTickets;
+        this.version = version == null ? 0 : version;
+    }
 
     public Long getId() {
         return id;
@@ -109,4 +131,12 @@ public class EventItemDTO {
     public Long getEventId() {
         return eventId;
     }
-}
\ No newline at end of file
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
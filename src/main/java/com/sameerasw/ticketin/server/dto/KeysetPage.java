@@ -0,0 +1,62 @@
+package com.sameerasw.ticketin.server.dto;
+
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a list endpoint ordered by id. The next cursor is an opaque token for the last id on the page, null on the last page.
+public class KeysetPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Builds a page from a query that fetched up to size + 1 rows; the extra row only signals that another page exists.
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, encodeCursor(idOf.apply(items.get(size - 1))));
+    }
+
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decodeCursor(String cursor) {
+        // No cursor means the first page. A malformed one is rejected with IllegalArgumentException.
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    }
+
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.set(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return headers;
+    }
+
+    public static int clampSize(int size, int maxSize) {
+        return Math.max(1, Math.min(size, maxSize));
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
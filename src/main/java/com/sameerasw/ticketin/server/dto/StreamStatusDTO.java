@@ -0,0 +1,53 @@
+package com.sameerasw.ticketin.server.dto;
+
+public class StreamStatusDTO {
+    public static final String SUBSCRIBED = "SUBSCRIBED";
+    public static final String SNAPSHOT_REQUIRED = "SNAPSHOT_REQUIRED";
+
+    private String type;
+    private Long eventId;
+    private long epoch;
+    private long seq;
+
+    public StreamStatusDTO() {
+    }
+
+    public StreamStatusDTO(String type, Long eventId, long epoch, long seq) {
+        this.type = type;
+        this.eventId = eventId;
+        this.epoch = epoch;
+        this.seq = seq;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(long epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sameerasw.ticketin.server.dto;
+
+import java.util.List;
+
+public class SubscriptionRequestDTO {
+    private String action;
+    private List<Long> eventIds;
+    private List<String> streams;
+
+    public SubscriptionRequestDTO() {
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public List<Long> getEventIds() {
+        return eventIds;
+    }
+
+    public void setEventIds(List<Long> eventIds) {
+        this.eventIds = eventIds;
+    }
+
+    public List<String> getStreams() {
+        return streams;
+    }
+
+    public void setStreams(List<String> streams) {
+        this.streams = streams;
+    }
+}
@@ -0,0 +1,54 @@
+package com.sameerasw.ticketin.server.dto;
+
+import java.time.Instant;
+
+// One row of the ticket export. Read straight from a projection query, never as a managed entity.
+public class TicketExportDTO {
+    public static final String CSV_HEADER = "ticketId,eventId,sold,customerId,heldBy,heldUntil";
+
+    private final Long ticketId;
+    private final Long eventId;
+    private final boolean sold;
+    private final Long customerId;
+    private final Long heldBy;
+    private final Instant heldUntil;
+
+    public TicketExportDTO(Long ticketId, Long eventId, boolean sold, Long customerId, Long heldBy, Instant heldUntil) {
+        this.ticketId = ticketId;
+        this.eventId = eventId;
+        this.sold = sold;
+        this.customerId = customerId;
+        this.heldBy = heldBy;
+        this.heldUntil = heldUntil;
+    }
+
+    public String toCsv() {
+        // Every column is a number, boolean or ISO timestamp, so no quoting is needed.
+        return ticketId + "," + eventId + "," + sold + "," + (customerId == null ? "" : customerId) + ","
+                + (heldBy == null ? "" : heldBy) + "," + (heldUntil == null ? "" : heldUntil);
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public boolean isSold() {
+        return sold;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getHeldBy() {
+        return heldBy;
+    }
+
+    public Instant getHeldUntil() {
+        return heldUntil;
+    }
+}
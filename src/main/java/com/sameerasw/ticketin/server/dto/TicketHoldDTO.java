@@ -0,0 +1,40 @@
+package com.sameerasw.ticketin.server.dto;
+
+public class TicketHoldDTO {
+    private Long ticketId;
+    private Long eventItemId;
+    private long holdSeconds;
+
+    public TicketHoldDTO() {
+    }
+
+    public TicketHoldDTO(Long ticketId, Long eventItemId, long holdSeconds) {
+        this.ticketId = ticketId;
+        this.eventItemId = eventItemId;
+        this.holdSeconds = holdSeconds;
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(Long ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Long getEventItemId() {
+        return eventItemId;
+    }
+
+    public void setEventItemId(Long eventItemId) {
+        this.eventItemId = eventItemId;
+    }
+
+    public long getHoldSeconds() {
+        return holdSeconds;
+    }
+
+    public void setHoldSeconds(long holdSeconds) {
+        this.holdSeconds = holdSeconds;
+    }
+}
@@ -0,0 +1,30 @@
+package com.sameerasw.ticketin.server.dto;
+
+public class WaitingRoomDTO {
+    private Long eventItemId;
+    private long position;
+
+    public WaitingRoomDTO() {
+    }
+
+    public WaitingRoomDTO(Long eventItemId, long position) {
+        this.eventItemId = eventItemId;
+        this.position = position;
+    }
+
+    public Long getEventItemId() {
+        return eventItemId;
+    }
+
+    public void setEventItemId(Long eventItemId) {
+        this.eventItemId = eventItemId;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+}
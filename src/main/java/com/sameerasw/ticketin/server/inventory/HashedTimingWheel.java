@@ -0,0 +1,132 @@
+package com.sameerasw.ticketin.server.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class HashedTimingWheel<T> {
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<LinkedList<Timeout<T>>> wheel;
+    private final Queue<Timeout<T>> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Consumer<List<T>> onExpired;
+    private final Thread worker;
+    private final long startNanos = System.nanoTime();
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, ThreadFactory threadFactory, Consumer<List<T>> onExpired) {
+        // Round the wheel size up to a power of two so the bucket index is a simple mask.
+        int size = wheelSize <= 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = size - 1;
+        this.wheel = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new LinkedList<>());
+        }
+        this.onExpired = onExpired;
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    public Timeout<T> schedule(T item, long delay, TimeUnit unit) {
+        // Scheduling is a lock-free enqueue; the worker thread places the timeout into its bucket on the next tick.
+        Timeout<T> timeout = new Timeout<>(item, System.nanoTime() - startNanos + unit.toNanos(delay));
+        newTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        // Only the worker thread touches the buckets, so they need no synchronization.
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            transferNewTimeouts();
+            List<T> expired = expireBucket(wheel.get((int) (tick & mask)));
+            tick++;
+            if (!expired.isEmpty()) {
+                try {
+                    onExpired.accept(expired);
+                } catch (Exception e) {
+                    logger.error("Expiry handler failed for " + expired.size() + " timeouts", e);
+                }
+            }
+        }
+    }
+
+    private void transferNewTimeouts() {
+        Timeout<T> timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long expiryTick = timeout.deadlineNanos / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.size();
+            // Timeouts already due go into the current bucket so they expire on this tick.
+            wheel.get((int) (Math.max(expiryTick, tick) & mask)).add(timeout);
+        }
+    }
+
+    private List<T> expireBucket(LinkedList<Timeout<T>> bucket) {
+        List<T> expired = new ArrayList<>();
+        Iterator<Timeout<T>> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout<T> timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                expired.add(timeout.item);
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+        return expired;
+    }
+
+    public static class Timeout<T> {
+        private final T item;
+        private final long deadlineNanos;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public T getItem() {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.sameerasw.ticketin.server.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class TicketInventory {
+    private static final int SEGMENT_WORDS = 256; // 16,384 ticket slots (2 KB) per bitset segment
+
+    private final Long eventItemId;
+    private final AtomicInteger availableTickets = new AtomicInteger();
+    private final AtomicInteger scanStart = new AtomicInteger();
+    private final ReentrantLock slotLock = new ReentrantLock();
+
+    // One bit per ticket slot, set while the ticket is available. Slots map to ticket IDs through runs of consecutive IDs,
+    // so a release of 100k tickets from the pooled sequence costs a few runs plus ~12 KB of bits instead of 100k boxed IDs.
+    private volatile AtomicLongArray[] segments = new AtomicLongArray[0];
+    private volatile SlotRuns runs = new SlotRuns(16);
+    private volatile int runCount;
+    private volatile int slotCount;
+
+    public TicketInventory(Long eventItemId) {
+        this.eventItemId = eventItemId;
+    }
+
+    public Long claim() {
+        List<Long> ticketIds = claim(1);
+        return ticketIds.isEmpty() ? null : ticketIds.get(0);
+    }
+
+    public List<Long> claim(int count) {
+        // Claim up to count ticket IDs, fewer if the inventory runs dry. Bits are cleared a word at a time with CAS,
+        // so concurrent buyers never block each other, and the scan starts where the last claim found tickets.
+        List<Long> ticketIds = new ArrayList<>(Math.min(count, Long.SIZE));
+        if (count <= 0 || availableTickets.get() <= 0) {
+            return ticketIds;
+        }
+        int words = (slotCount + Long.SIZE - 1) / Long.SIZE;
+        AtomicLongArray[] segments = this.segments;
+        int start = words == 0 ? 0 : scanStart.get() % words;
+        for (int i = 0; i < words && ticketIds.size() < count; i++) {
+            int word = start + i < words ? start + i : start + i - words;
+            AtomicLongArray segment = segments[word / SEGMENT_WORDS];
+            int index = word % SEGMENT_WORDS;
+            long bits;
+            while ((bits = segment.get(index)) != 0 && ticketIds.size() < count) {
+                long taken = lowestBits(bits, count - ticketIds.size());
+                if (segment.compareAndSet(index, bits, bits & ~taken)) {
+                    availableTickets.addAndGet(-Long.bitCount(taken));
+                    for (long remaining = taken; remaining != 0; remaining &= remaining - 1) {
+                        ticketIds.add(ticketIdOf(word * Long.SIZE + Long.numberOfTrailingZeros(remaining)));
+                    }
+                    scanStart.set(word);
+                }
+            }
+        }
+        return ticketIds;
+    }
+
+    public void add(Long ticketId) {
+        // The counter is bumped before the bit is published so it never drops below the number of set bits.
+        int slot = slotOf(ticketId);
+        if (slot < 0) {
+            slot = allocateSlot(ticketId);
+        }
+        availableTickets.incrementAndGet();
+        AtomicLongArray segment = segments[slot / Long.SIZE / SEGMENT_WORDS];
+        int index = slot / Long.SIZE % SEGMENT_WORDS;
+        long mask = 1L << (slot % Long.SIZE);
+        long bits;
+        do {
+            bits = segment.get(index);
+            if ((bits & mask) != 0) {
+                // Already available, e.g. a release seen twice.
+                availableTickets.decrementAndGet();
+                return;
+            }
+        } while (!segment.compareAndSet(index, bits, bits | mask));
+    }
+
+    public int getAvailableTickets() {
+        return availableTickets.get();
+    }
+
+    public int countAvailableSlots() {
+        // Exact count from the bits themselves, in O(words); getAvailableTickets() is the O(1) running counter.
+        int words = (slotCount + Long.SIZE - 1) / Long.SIZE;
+        AtomicLongArray[] segments = this.segments;
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            count += Long.bitCount(segments[word / SEGMENT_WORDS].get(word % SEGMENT_WORDS));
+        }
+        return count;
+    }
+
+    public Long getEventItemId() {
+        return eventItemId;
+    }
+
+    private static long lowestBits(long bits, int count) {
+        if (Long.bitCount(bits) <= count) {
+            return bits;
+        }
+        long taken = 0;
+        for (int i = 0; i < count; i++) {
+            long lowest = bits & -bits;
+            taken |= lowest;
+            bits ^= lowest;
+        }
+        return taken;
+    }
+
+    Long ticketIdOf(int slot) {
+        // Runs are appended in slot order, so the run holding a slot is found by binary search on the start slots.
+        int high = runCount - 1;
+        SlotRuns runs = this.runs;
+        int low = 0;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (runs.startSlots[mid] <= slot) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return runs.startIds[low] + (slot - runs.startSlots[low]);
+    }
+
+    int slotOf(Long ticketId) {
+        // Lock-free lookup through the runs sorted by first ticket ID. A miss caused by a concurrent update is resolved under the lock.
+        int high = runCount - 1;
+        SlotRuns runs = this.runs;
+        int low = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int run = runs.byStartId[mid];
+            if (ticketId < runs.startIds[run]) {
+                high = mid - 1;
+            } else if (ticketId >= runs.startIds[run] + runs.lengths[run]) {
+                low = mid + 1;
+            } else {
+                int slot = runs.startSlots[run] + (int) (ticketId - runs.startIds[run]);
+                return slot < slotCount ? slot : -1;
+            }
+        }
+        return -1;
+    }
+
+    private int allocateSlot(Long ticketId) {
+        slotLock.lock();
+        try {
+            int slot = slotOf(ticketId);
+            if (slot >= 0) {
+                return slot;
+            }
+            slot = slotCount;
+            if (slot / Long.SIZE / SEGMENT_WORDS >= segments.length) {
+                AtomicLongArray[] grown = new AtomicLongArray[segments.length + 1];
+                System.arraycopy(segments, 0, grown, 0, segments.length);
+                grown[segments.length] = new AtomicLongArray(SEGMENT_WORDS);
+                segments = grown;
+            }
+            SlotRuns runs = this.runs;
+            int last = runCount - 1;
+            if (last >= 0 && runs.startIds[last] + runs.lengths[last] == ticketId) {
+                // The common case: IDs from the pooled sequence arrive in order and just extend the latest run.
+                runs.lengths[last]++;
+            } else {
+                if (runCount == runs.startIds.length) {
+                    runs = runs.grow();
+                    this.runs = runs;
+                }
+                runs.add(runCount, ticketId, slot);
+                runCount++;
+            }
+            slotCount = slot + 1;
+            return slot;
+        } finally {
+            slotLock.unlock();
+        }
+    }
+
+    private static final class SlotRuns {
+        private final long[] startIds;
+        private final int[] startSlots;
+        private final int[] lengths;
+        private final int[] byStartId;
+
+        private SlotRuns(int capacity) {
+            this.startIds = new long[capacity];
+            this.startSlots = new int[capacity];
+            this.lengths = new int[capacity];
+            this.byStartId = new int[capacity];
+        }
+
+        private SlotRuns grow() {
+            SlotRuns grown = new SlotRuns(startIds.length * 2);
+            System.arraycopy(startIds, 0, grown.startIds, 0, startIds.length);
+            System.arraycopy(startSlots, 0, grown.startSlots, 0, startSlots.length);
+            System.arraycopy(lengths, 0, grown.lengths, 0, lengths.length);
+            System.arraycopy(byStartId, 0, grown.byStartId, 0, byStartId.length);
+            return grown;
+        }
+
+        private void add(int run, long startId, int startSlot) {
+            startIds[run] = startId;
+            startSlots[run] = startSlot;
+            lengths[run] = 1;
+            int position = run;
+            while (position > 0 && startIds[byStartId[position - 1]] > startId) {
+                position--;
+            }
+            System.arraycopy(byStartId, position, byStartId, position + 1, run - position);
+            byStartId[position] = run;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.sameerasw.ticketin.server.inventory;
+
+import com.sameerasw.ticketin.server.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+@Service
+public class TicketInventoryService {
+    private static final Logger logger = LoggerFactory.getLogger(TicketInventoryService.class);
+
+    private final Map<Long, TicketInventory> inventories = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        // Rebuild the in-memory inventories from the unsold tickets in the database, so a restart never sells a ticket twice.
+        AtomicInteger loaded = new AtomicInteger();
+        try (Stream<Object[]> rows = ticketRepository.streamAvailableTicketIds()) {
+            rows.forEach(row -> {
+                getInventory((Long) row[0]).add((Long) row[1]);
+                loaded.incrementAndGet();
+            });
+        }
+        logger.info("Ticket inventory rebuilt: " + loaded.get() + " available tickets across " + inventories.size() + " events");
+    }
+
+    public TicketInventory getInventory(Long eventItemId) {
+        return inventories.computeIfAbsent(eventItemId, TicketInventory::new);
+    }
+
+    public void addAfterCommit(Long eventItemId, List<Long> ticketIds) {
+        // Released tickets only become claimable once their inserts are committed, otherwise a buyer could claim a row it cannot see yet.
+        // One synchronization covers the whole release instead of one per ticket.
+        TicketInventory inventory = getInventory(eventItemId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ticketIds.forEach(inventory::add);
+                }
+            });
+        } else {
+            ticketIds.forEach(inventory::add);
+        }
+    }
+
+    public void returnOnRollback(Long eventItemId, List<Long> ticketIds) {
+        // Claimed tickets go back to the inventory if the claiming transaction is rolled back.
+        TicketInventory inventory = getInventory(eventItemId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    ticketIds.forEach(inventory::add);
+                }
+            }
+        });
+    }
+}
@@ -2,14 +2,22 @@ package com.sameerasw.ticketin.server.model;
 
 import jakarta.persistence.*;
 
+import java.time.Instant;
+
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_ticket_event_sold", columnList = "event_item_event_id, is_sold"),
+        @Index(name = "idx_ticket_customer", columnList = "customer_id, id")
+})
 public class Ticket {
+    public static final int ID_BLOCK_SIZE = 1000;
 
     @ManyToOne
     private TicketPool ticketPool;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_seq", allocationSize = Ticket.ID_BLOCK_SIZE) // Each node reserves ids in blocks
     private Long id;
 
     @Version
@@ -18,6 +26,9 @@ public class Ticket {
     private boolean isSold = false;
     private boolean isSimulated;
 
+    private Long heldBy; // Customer holding the ticket until heldUntil
+    private Instant heldUntil;
+
     @ManyToOne
     private EventItem eventItem; // Link to Event
     @ManyToOne
@@ -74,6 +85,14 @@ public class Ticket {
         return this.eventItem;
     }
 
+    public Long getHeldBy() {
+        return this.heldBy;
+    }
+
+    public Instant getHeldUntil() {
+        return this.heldUntil;
+    }
+
     public Object getTicketId() {
         return this.id;
     }
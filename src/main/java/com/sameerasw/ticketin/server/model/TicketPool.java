@@ -3,7 +3,6 @@ package com.sameerasw.ticketin.server.model;
 import jakarta.persistence.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Entity
 public class TicketPool {
@@ -16,9 +15,16 @@ public class TicketPool {
     @JoinColumn(name = "event_item_id")
     private EventItem eventItem;
 
-    @OneToMany(mappedBy = "ticketPool", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "ticketPool", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Ticket> tickets;
 
+    // Kept in step by atomic UPDATEs on the release, hold and purchase paths. Held tickets are counted apart from available ones.
+    private Integer availableTickets = 0;
+    private Integer heldTickets = 0;
+    private Integer soldTickets = 0;
+    // Bumped with every counter change, so clients can revalidate the event and pool with an ETag
+    private Long changeVersion = 0L;
+
     public TicketPool() {
     }
 
@@ -40,14 +46,21 @@ public class TicketPool {
         return poolId;
     }
 
-    public List<Ticket> getTickets() {
-        return tickets.stream().filter(Ticket::isAvailable).collect(Collectors.toList());
+    public int getAvailableTickets() {
+        return availableTickets == null ? 0 : availableTickets;
+    }
+
+    public int getHeldTickets() {
+        return heldTickets == null ? 0 : heldTickets;
     }
 
-public int getAvailableTickets() {
-    int availableTickets = (tickets == null) ? 0 : (int) tickets.stream().filter(ticket -> ticket.isAvailable()).count();
-    return availableTickets;
-}
+    public int getSoldTickets() {
+        return soldTickets == null ? 0 : soldTickets;
+    }
+
+    public long getChangeVersion() {
+        return changeVersion == null ? 0 : changeVersion;
+    }
 
     public String getEventName() {
         return eventItem.getName();
@@ -0,0 +1,24 @@
+package com.sameerasw.ticketin.server.notification;
+
+// Published whenever an event is created or its ticket availability changes (release, purchase, hold, expiry).
+public class EventItemChangedEvent {
+    private final Long eventItemId;
+    private final boolean created;
+
+    public EventItemChangedEvent(Long eventItemId, boolean created) {
+        this.eventItemId = eventItemId;
+        this.created = created;
+    }
+
+    public EventItemChangedEvent(Long eventItemId) {
+        this(eventItemId, false);
+    }
+
+    public Long getEventItemId() {
+        return eventItemId;
+    }
+
+    public boolean isCreated() {
+        return created;
+    }
+}
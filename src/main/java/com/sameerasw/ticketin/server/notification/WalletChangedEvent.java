@@ -0,0 +1,14 @@
+package com.sameerasw.ticketin.server.notification;
+
+// Published when tickets are sold to a customer, so their cached wallet can be dropped.
+public class WalletChangedEvent {
+    private final Long customerId;
+
+    public WalletChangedEvent(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+}
@@ -1,16 +1,39 @@
 package com.sameerasw.ticketin.server.repository;
 
+import com.sameerasw.ticketin.server.dto.EventItemDTO;
 import com.sameerasw.ticketin.server.model.EventItem;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 @Transactional
 public interface EventRepository extends JpaRepository<EventItem, Long> {
+    // Read model for the catalog endpoints: event fields, vendor and the pool's available counter in one statement
+    String CATALOG_ENTRY = "select new com.sameerasw.ticketin.server.dto.EventItemDTO(e.eventId, e.eventName, e.eventLocation, e.eventDate, " +
+            "e.eventTime, e.ticketPrice, e.details, e.image, v.id, v.name, p.availableTickets, p.changeVersion) " +
+            "from EventItem e join e.vendor v left join e.ticketPool p ";
+
     List<EventItem> findByVendorId(Long vendorId);
 
     List<EventItem> findByisSimulated(boolean b);
+
+    @Query("select e.eventId from EventItem e where e.isSimulated = :isSimulated and e.eventId > :afterId order by e.eventId")
+    List<Long> findIdsByIsSimulated(@Param("isSimulated") boolean isSimulated, @Param("afterId") long afterId, Limit limit);
+
+    @Query(CATALOG_ENTRY + "where e.eventId in :eventIds")
+    List<EventItemDTO> findCatalogEntriesById(@Param("eventIds") Collection<Long> eventIds);
+
+    @Query(CATALOG_ENTRY + "where e.eventId = :eventId")
+    Optional<EventItemDTO> findCatalogEntry(@Param("eventId") Long eventId);
+
+    @Query(CATALOG_ENTRY + "where v.id = :vendorId and e.eventId > :afterId order by e.eventId")
+    List<EventItemDTO> findCatalogEntriesByVendor(@Param("vendorId") Long vendorId, @Param("afterId") long afterId, Limit limit);
 }
@@ -0,0 +1,35 @@
+package com.sameerasw.ticketin.server.repository;
+
+import com.sameerasw.ticketin.server.model.Ticket;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TicketIdSequence {
+    private static final Logger logger = LoggerFactory.getLogger(TicketIdSequence.class);
+    // Tickets created before the switch from IDENTITY keep their ids; move the sequence past them so new blocks never collide.
+    private static final String ALIGN_SQL = "SELECT setval('ticket_seq', (SELECT MAX(id) FROM ticket) + " + Ticket.ID_BLOCK_SIZE + ") "
+            + "WHERE (SELECT last_value FROM ticket_seq) <= (SELECT COALESCE(MAX(id), 0) FROM ticket)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory dependency makes sure the schema (and ticket_seq) exists before aligning.
+    public TicketIdSequence(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        try {
+            jdbcTemplate.queryForList(ALIGN_SQL, Long.class)
+                    .forEach(value -> logger.info("Ticket id sequence moved past existing tickets to " + value));
+        } catch (DataAccessException e) {
+            logger.warn("Could not align ticket id sequence: " + e.getMessage());
+        }
+    }
+}
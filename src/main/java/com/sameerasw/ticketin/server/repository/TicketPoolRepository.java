@@ -3,12 +3,40 @@ package com.sameerasw.ticketin.server.repository;
 import com.sameerasw.ticketin.server.model.TicketPool;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 @Transactional
 public interface TicketPoolRepository extends JpaRepository<TicketPool, Long> {
 
-    TicketPool findByEventItemIdAndTicketsIsSoldFalse(Long eventItemId);
+    TicketPool findByEventItemId(Long eventItemId);
+
+    // Cheap revalidation for conditional GETs: one ticket_pool row, no ticket rows
+    @Query("select p.changeVersion from TicketPool p where p.eventItem.eventId = :eventItemId")
+    Long findChangeVersion(@Param("eventItemId") Long eventItemId);
+
+    // Reads just the pool's available counter, the one count of available tickets every page and socket reports
+    @Query("select p.availableTickets from TicketPool p where p.eventItem.eventId = :eventItemId")
+    Integer findAvailableTickets(@Param("eventItemId") Long eventItemId);
+
+    // Moves tickets between the pool's counters; every sale is availableDelta = -n, soldDelta = +n.
+    @Modifying
+    @Query(value = "UPDATE ticket_pool SET available_tickets = available_tickets + :availableDelta, sold_tickets = sold_tickets + :soldDelta, " +
+            "change_version = change_version + 1 " +
+            "WHERE event_item_id = :eventItemId", nativeQuery = true)
+    int adjustCounters(@Param("eventItemId") Long eventItemId, @Param("availableDelta") int availableDelta, @Param("soldDelta") int soldDelta);
+
+    // Counts the tickets of pools created before the counters (or the change version) existed. Returns the number of pools backfilled.
+    @Modifying
+    @Query(value = "UPDATE ticket_pool p SET " +
+            "available_tickets = (SELECT count(*) FROM ticket t WHERE t.event_item_event_id = p.event_item_id AND t.is_sold = false AND t.held_by IS NULL), " +
+            "held_tickets = (SELECT count(*) FROM ticket t WHERE t.event_item_event_id = p.event_item_id AND t.is_sold = false AND t.held_by IS NOT NULL), " +
+            "sold_tickets = (SELECT count(*) FROM ticket t WHERE t.event_item_event_id = p.event_item_id AND t.is_sold = true), " +
+            "change_version = COALESCE(p.change_version, 0) " +
+            "WHERE p.available_tickets IS NULL OR p.held_tickets IS NULL OR p.sold_tickets IS NULL OR p.change_version IS NULL", nativeQuery = true)
+    int backfillCounters();
 
 }
\ No newline at end of file
@@ -1,14 +1,144 @@
 package com.sameerasw.ticketin.server.repository;
 
+import com.sameerasw.ticketin.server.dto.TicketDTO;
+import com.sameerasw.ticketin.server.dto.TicketExportDTO;
 import com.sameerasw.ticketin.server.model.Ticket;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 @Transactional
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
+    // A ticket can be claimed when it is unsold and not held. A lapsed hold stays out of sale until its expiry has run, so the
+    // pool's available counter only ever changes through the statements below.
+    String AVAILABLE = "is_sold = false AND held_by IS NULL";
+    String SELL_TO_CUSTOMER = "UPDATE ticket SET is_sold = true, customer_id = :customerId, held_by = NULL, held_until = NULL, version = version + 1 ";
+    String TICKET_DTO = "select new com.sameerasw.ticketin.server.dto.TicketDTO(e.eventName, cast(t.id as String), e.image, " +
+            "concat(e.eventDate, ' ', e.eventTime), cast(e.eventId as String)) from Ticket t join t.eventItem e ";
+    String TICKET_EXPORT = "select new com.sameerasw.ticketin.server.dto.TicketExportDTO(t.id, t.eventItem.eventId, t.isSold, t.customer.id, " +
+            "t.heldBy, t.heldUntil) from Ticket t ";
+    int EXPORT_FETCH_SIZE = 5000;
+    // Moves the rows sold by a "claimed" CTE from the pool's available to its sold counter in the same statement
+    String COUNT_SALES = "UPDATE ticket_pool p SET available_tickets = available_tickets - c.sold, sold_tickets = sold_tickets + c.sold, " +
+            "change_version = change_version + 1 " +
+            "FROM (SELECT event_item_event_id, count(*) AS sold FROM claimed GROUP BY event_item_event_id) c WHERE p.event_item_id = c.event_item_event_id";
+    // Held tickets already left the available counter, so confirming a "claimed" hold moves it from held to sold
+    String COUNT_HELD_SALES = "UPDATE ticket_pool p SET held_tickets = held_tickets - c.sold, sold_tickets = sold_tickets + c.sold, " +
+            "change_version = change_version + 1 " +
+            "FROM (SELECT event_item_event_id, count(*) AS sold FROM claimed GROUP BY event_item_event_id) c WHERE p.event_item_id = c.event_item_event_id";
+    // Moves the rows of a "held" CTE from the pool's available to its held counter
+    String COUNT_HOLDS = "UPDATE ticket_pool p SET available_tickets = available_tickets - c.held, held_tickets = held_tickets + c.held, " +
+            "change_version = change_version + 1 " +
+            "FROM (SELECT event_item_event_id, count(*) AS held FROM held GROUP BY event_item_event_id) c WHERE p.event_item_id = c.event_item_event_id";
+    // Moves the rows of a "released" CTE, cancelled or expired holds, from the pool's held counter back to available
+    String COUNT_RELEASES = "UPDATE ticket_pool p SET available_tickets = available_tickets + c.released, held_tickets = held_tickets - c.released, " +
+            "change_version = change_version + 1 " +
+            "FROM (SELECT event_item_event_id, count(*) AS released FROM released GROUP BY event_item_event_id) c WHERE p.event_item_id = c.event_item_event_id";
+
     List<Ticket> findByEventItemId(Long eventItemId);
+
+    // Ticket listings are read as DTO projections, one keyset page at a time
+    @Query(TICKET_DTO + "where t.id > :afterId order by t.id")
+    List<TicketDTO> findTicketPage(@Param("afterId") long afterId, Limit limit);
+
+    @Query(TICKET_DTO + "where e.eventId = :eventItemId and t.id > :afterId order by t.id")
+    List<TicketDTO> findEventTicketPage(@Param("eventItemId") Long eventItemId, @Param("afterId") long afterId, Limit limit);
+
+    // A customer's wallet: their tickets with event name, image and date, one statement per page
+    @Query(TICKET_DTO + "where t.customer.id = :customerId and t.id > :afterId order by t.id")
+    List<TicketDTO> findWalletPage(@Param("customerId") Long customerId, @Param("afterId") long afterId, Limit limit);
+
+    // (eventItemId, ticketId) pairs of every claimable ticket, used to rebuild the in-memory inventories
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select t.eventItem.eventId, t.id from Ticket t where t.isSold = false and t.heldBy is null order by t.id")
+    Stream<Object[]> streamAvailableTicketIds();
+
+    // Full ticket dumps for exports. Read-only projections streamed with a server-side cursor, so heap use does not grow with the table.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query(TICKET_EXPORT + "order by t.id")
+    Stream<TicketExportDTO> streamTicketExport();
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query(TICKET_EXPORT + "where t.eventItem.eventId = :eventItemId order by t.id")
+    Stream<TicketExportDTO> streamTicketExport(@Param("eventItemId") Long eventItemId);
+
+    // Sells the given ticket to the customer if it is still available and counts the sale on its pool. Returns the number of rows claimed (0 or 1).
+    @Modifying
+    @Query(value = "WITH claimed AS (" + SELL_TO_CUSTOMER + "WHERE id = :ticketId AND " + AVAILABLE + " RETURNING event_item_event_id) " +
+            COUNT_SALES, nativeQuery = true)
+    int claimTicket(@Param("ticketId") Long ticketId, @Param("customerId") Long customerId);
+
+    // Sells any one available ticket of the event to the customer, counts the sale on its pool and returns its ID, or null when sold out.
+    // SKIP LOCKED lets concurrent buyers, on this or any other node, claim different rows without waiting on each other.
+    @Query(value = "WITH claimed AS (" + SELL_TO_CUSTOMER + "WHERE id = (SELECT id FROM ticket WHERE event_item_event_id = :eventItemId AND " + AVAILABLE +
+            " ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING id, event_item_event_id), counted AS (" + COUNT_SALES + ") " +
+            "SELECT id FROM claimed", nativeQuery = true)
+    Long claimNextTicket(@Param("eventItemId") Long eventItemId, @Param("customerId") Long customerId);
+
+    // Sells whichever of the given tickets are still available to the customer and returns the IDs that were claimed.
+    @Query(value = SELL_TO_CUSTOMER + "WHERE id IN (:ticketIds) AND " + AVAILABLE + " RETURNING id", nativeQuery = true)
+    List<Long> claimTickets(@Param("ticketIds") List<Long> ticketIds, @Param("customerId") Long customerId);
+
+    // Sells up to count available tickets of the event to the customer and returns their IDs.
+    @Query(value = SELL_TO_CUSTOMER + "WHERE id IN (SELECT id FROM ticket WHERE event_item_event_id = :eventItemId AND " + AVAILABLE +
+            " ORDER BY id LIMIT :count FOR UPDATE SKIP LOCKED) RETURNING id", nativeQuery = true)
+    List<Long> claimNextTickets(@Param("eventItemId") Long eventItemId, @Param("customerId") Long customerId, @Param("count") int count);
+
+    // Locks up to count available tickets of the event for the current transaction and returns their IDs.
+    @Query(value = "SELECT id FROM ticket WHERE event_item_event_id = :eventItemId AND " + AVAILABLE +
+            " ORDER BY id LIMIT :count FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockNextAvailableTicketIds(@Param("eventItemId") Long eventItemId, @Param("count") int count);
+
+    @Query("select count(t) > 0 from Ticket t where t.eventItem.eventId = :eventItemId and t.isSold = false and t.heldBy is null")
+    boolean existsAvailableTicket(@Param("eventItemId") Long eventItemId);
+
+    // Holds the given ticket for the customer for ttlSeconds if it is still available and counts it as held on its pool.
+    // Returns the number of rows held (0 or 1).
+    @Modifying
+    @Query(value = "WITH held AS (UPDATE ticket SET held_by = :customerId, held_until = now() + :ttlSeconds * interval '1 second' " +
+            "WHERE id = :ticketId AND " + AVAILABLE + " RETURNING event_item_event_id) " +
+            COUNT_HOLDS, nativeQuery = true)
+    int holdTicket(@Param("ticketId") Long ticketId, @Param("customerId") Long customerId, @Param("ttlSeconds") long ttlSeconds);
+
+    // Holds any one available ticket of the event for the customer, counts it as held and returns its ID, or null when sold out.
+    @Query(value = "WITH held AS (UPDATE ticket SET held_by = :customerId, held_until = now() + :ttlSeconds * interval '1 second' " +
+            "WHERE id = (SELECT id FROM ticket WHERE event_item_event_id = :eventItemId AND " + AVAILABLE +
+            " ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING id, event_item_event_id), counted AS (" + COUNT_HOLDS + ") " +
+            "SELECT id FROM held", nativeQuery = true)
+    Long holdNextTicket(@Param("eventItemId") Long eventItemId, @Param("customerId") Long customerId, @Param("ttlSeconds") long ttlSeconds);
+
+    // Sells a held ticket to the customer holding it, as long as the hold has not expired, and counts the sale on its pool.
+    @Modifying
+    @Query(value = "WITH claimed AS (UPDATE ticket SET is_sold = true, customer_id = held_by, held_by = NULL, held_until = NULL, version = version + 1 " +
+            "WHERE id = :ticketId AND held_by = :customerId AND is_sold = false AND held_until >= now() RETURNING event_item_event_id) " +
+            COUNT_HELD_SALES, nativeQuery = true)
+    int confirmHold(@Param("ticketId") Long ticketId, @Param("customerId") Long customerId);
+
+    // Drops the customer's hold on an unsold ticket, making it available again.
+    @Modifying
+    @Query(value = "WITH released AS (UPDATE ticket SET held_by = NULL, held_until = NULL " +
+            "WHERE id = :ticketId AND held_by = :customerId AND is_sold = false RETURNING event_item_event_id) " +
+            COUNT_RELEASES, nativeQuery = true)
+    int releaseHold(@Param("ticketId") Long ticketId, @Param("customerId") Long customerId);
+
+    @Query("select t.eventItem.eventId from Ticket t where t.id = :ticketId")
+    Long findEventItemIdById(@Param("ticketId") Long ticketId);
+
+    // (eventItemId, ticketId, heldBy, heldUntil) of every hold, used to reschedule their expiry after a restart. Lapsed holds are
+    // included, since they stay out of sale until released.
+    @Query("select t.eventItem.eventId, t.id, t.heldBy, t.heldUntil from Ticket t where t.isSold = false and t.heldBy is not null")
+    List<Object[]> findActiveHolds();
 }
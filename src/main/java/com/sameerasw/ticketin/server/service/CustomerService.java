@@ -1,26 +1,23 @@
 package com.sameerasw.ticketin.server.service;
 
 import com.sameerasw.ticketin.server.model.Customer;
-import com.sameerasw.ticketin.server.model.EventItem;
 import com.sameerasw.ticketin.server.repository.CustomerRepository;
 import com.sameerasw.ticketin.server.repository.EventRepository;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class CustomerService {
     private static final Logger logger = LoggerFactory.getLogger(CustomerService.class);
 
-    private final Lock lock = new ReentrantLock();
-
     @Autowired
     private CustomerRepository customerRepository;
     @Autowired
@@ -29,6 +26,11 @@ public class CustomerService {
     private TicketPoolService ticketPoolService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private PurchasePipeline purchasePipeline;
+
+    @Value("${ticketin.purchase.batch.enabled:true}")
+    private boolean batchPurchases;
 
     @Transactional
     public Customer createCustomer(Customer customer) {
@@ -40,17 +42,28 @@ public class CustomerService {
         return customerRepository.save(customer);
     }
 
-    public void purchaseTicket(Customer customer, long eventItemId) {
-        // Purchase ticket for the customer for the given event. ReentrantLock is used to ensure that only one thread can access the ticket pool at a time.
-        lock.lock();
-        try {
-            EventItem eventItem = eventRepository.findById(eventItemId).orElse(null);
-            if (eventItem != null && eventItem.getTicketPool() != null) {
-                ticketPoolService.removeTicket(eventItemId, customer);
+    public Long purchaseTicket(Customer customer, long eventItemId) {
+        // Purchase ticket for the customer for the given event. With batching enabled the purchase joins the event's next micro-batch, so concurrent buyers share one transaction.
+        if (!eventRepository.existsById(eventItemId)) {
+            return null;
+        }
+        if (batchPurchases) {
+            try {
+                return purchasePipeline.submit(eventItemId, customer).join();
+            } catch (CompletionException e) {
+                // Rethrow the batch's own failure so callers can tell a conflict from an error.
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
             }
-        } finally {
-            lock.unlock();
         }
+        return ticketPoolService.removeTicket(eventItemId, customer);
+    }
+
+    public List<Long> purchaseTickets(Customer customer, long eventItemId, int ticketCount, boolean allOrNothing) {
+        // Purchase several tickets for the customer in one transaction, either all of them or as many as are left.
+        if (!eventRepository.existsById(eventItemId)) {
+            return List.of();
+        }
+        return ticketPoolService.removeTickets(eventItemId, customer, ticketCount, allOrNothing);
     }
 
     public List<Customer> getAllCustomers(boolean isSimulated) {
@@ -0,0 +1,117 @@
+package com.sameerasw.ticketin.server.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.sameerasw.ticketin.server.dto.EventItemDTO;
+import com.sameerasw.ticketin.server.dto.KeysetPage;
+import com.sameerasw.ticketin.server.notification.EventItemChangedEvent;
+import com.sameerasw.ticketin.server.repository.EventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class EventCatalogService {
+    private final LoadingCache<Long, Optional<EventItemDTO>> events;
+    private final LoadingCache<CatalogPage, List<Long>> catalogIds;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    public EventCatalogService(MeterRegistry meterRegistry,
+                               @Value("${ticketin.catalog.max-size:10000}") long maxSize,
+                               @Value("${ticketin.catalog.ttl-seconds:60}") long ttlSeconds,
+                               @Value("${ticketin.catalog.refresh-seconds:10}") long refreshSeconds,
+                               @Value("${ticketin.catalog.max-pages:1000}") long maxPages) {
+        // Entries older than refresh-seconds are still served while a reload runs in the background (stale-while-revalidate);
+        // entries past the TTL are dropped, which bounds staleness for changes made by other nodes.
+        this.events = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<EventItemDTO> load(Long eventItemId) {
+                        return eventRepository.findCatalogEntry(eventItemId);
+                    }
+
+                    @Override
+                    public Map<Long, Optional<EventItemDTO>> loadAll(Set<? extends Long> eventItemIds) {
+                        // Cold list requests load every missing event with one query instead of one per row.
+                        Map<Long, Optional<EventItemDTO>> loaded = new HashMap<>();
+                        for (EventItemDTO eventItem : eventRepository.findCatalogEntriesById(List.copyOf(eventItemIds))) {
+                            loaded.put(eventItem.getEventId(), Optional.of(eventItem));
+                        }
+                        eventItemIds.forEach(eventItemId -> loaded.putIfAbsent(eventItemId, Optional.empty()));
+                        return loaded;
+                    }
+                });
+        this.catalogIds = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .recordStats()
+                .build(page -> eventRepository.findIdsByIsSimulated(page.isSimulated(), page.afterId(), Limit.of(page.size() + 1)));
+        CaffeineCacheMetrics.monitor(meterRegistry, events, "event-catalog");
+        CaffeineCacheMetrics.monitor(meterRegistry, catalogIds, "event-catalog-ids");
+    }
+
+    public EventItemDTO getEvent(Long eventItemId) {
+        return events.get(eventItemId).orElse(null);
+    }
+
+    public EventItemDTO getEvent(Long eventItemId, long minVersion) {
+        // A cached entry older than the pool's current change version is replaced synchronously, so an ETag never labels stale data.
+        Optional<EventItemDTO> eventItem = events.get(eventItemId);
+        if (eventItem.isPresent() && eventItem.get().getVersion() < minVersion) {
+            eventItem = eventRepository.findCatalogEntry(eventItemId);
+            events.put(eventItemId, eventItem);
+        }
+        return eventItem.orElse(null);
+    }
+
+    public KeysetPage<EventItemDTO> getAllEvents(boolean isSimulated, long afterId, int size) {
+        // The ids of each page are cached, so a page costs one id lookup plus the events it holds.
+        List<Long> eventItemIds = catalogIds.get(new CatalogPage(isSimulated, afterId, size));
+        Map<Long, Optional<EventItemDTO>> loaded = events.getAll(eventItemIds);
+        List<EventItemDTO> rows = eventItemIds.stream()
+                .map(loaded::get)
+                .filter(Objects::nonNull)
+                .flatMap(Optional::stream)
+                .toList();
+        return KeysetPage.of(rows, size, EventItemDTO::getEventId);
+    }
+
+    public KeysetPage<EventItemDTO> getVendorEvents(long vendorId, long afterId, int size) {
+        return KeysetPage.of(eventRepository.findCatalogEntriesByVendor(vendorId, afterId, Limit.of(size + 1)), size, EventItemDTO::getEventId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventItemChanged(EventItemChangedEvent event) {
+        // Runs after the change commits. A new event invalidates the cached id pages; otherwise only the availability changed,
+        // so a cached entry is reloaded in the background with the single-row projection while the old one keeps being served.
+        if (event.isCreated()) {
+            catalogIds.invalidateAll();
+            events.invalidate(event.getEventItemId());
+        } else if (events.getIfPresent(event.getEventItemId()) != null) {
+            events.refresh(event.getEventItemId());
+        }
+    }
+
+    private record CatalogPage(boolean isSimulated, long afterId, int size) {
+    }
+}
@@ -2,8 +2,10 @@ package com.sameerasw.ticketin.server.service;
 
 import com.sameerasw.ticketin.server.model.EventItem;
 import com.sameerasw.ticketin.server.model.TicketPool;
+import com.sameerasw.ticketin.server.notification.EventItemChangedEvent;
 import com.sameerasw.ticketin.server.repository.EventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -16,6 +18,8 @@ public class EventService {
     private TicketPoolService ticketPoolService;
     @Autowired
     private EventRepository eventRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     public EventItem getEventById(Long eventItemId) {
         return eventRepository.findById(eventItemId).orElse(null);
@@ -31,7 +35,9 @@ public class EventService {
         ticketPoolService.createTicketPool(ticketPool);
         savedEventItem.setTicketPool(ticketPool);
         logger.info("TicketPool created for EventItem: (" + savedEventItem.getId() + ") - " + savedEventItem.getName());
-        return eventRepository.save(savedEventItem); // Save the updated EventItem
+        savedEventItem = eventRepository.save(savedEventItem); // Save the updated EventItem
+        eventPublisher.publishEvent(new EventItemChangedEvent(savedEventItem.getId(), true));
+        return savedEventItem;
     }
 
     public EventItem createEvent(EventItem eventItem) {
@@ -43,7 +49,9 @@ public class EventService {
         ticketPoolService.createTicketPool(ticketPool);
         savedEventItem.setTicketPool(ticketPool);
         logger.info("TicketPool created for EventItem: (" + savedEventItem.getId() + ") - " + savedEventItem.getName());
-        return eventRepository.save(savedEventItem); // Save the updated EventItem
+        savedEventItem = eventRepository.save(savedEventItem); // Save the updated EventItem
+        eventPublisher.publishEvent(new EventItemChangedEvent(savedEventItem.getId(), true));
+        return savedEventItem;
     }
 
     public List<EventItem> getAllEvents(boolean isSimulated) {
@@ -6,7 +6,6 @@ import org.springframework.stereotype.Service;
 
 @Service
 public class MappingService {
-
     public TicketDTO mapToTicketDTO(Ticket ticket) {
         TicketDTO dto = new TicketDTO();
         dto.setId(ticket.getId());
@@ -47,7 +46,7 @@ public class MappingService {
         dto.setImage(eventItem.getImage());
         dto.setVendorId(eventItem.getVendor().getId());
         dto.setVendorName(eventItem.getVendor().getName());
-        dto.setAvailableTickets(eventItem.getTicketPool().getAvailableTickets());
+        dto.setAvailableTickets(eventItem.getTicketPool() == null ? 0 : eventItem.getAvailableTickets());
         return dto;
     }
 
@@ -0,0 +1,158 @@
+package com.sameerasw.ticketin.server.service;
+
+import com.sameerasw.ticketin.server.model.Customer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class PurchasePipeline {
+    private static final Logger logger = LoggerFactory.getLogger(PurchasePipeline.class);
+
+    private final Map<Long, EventBatch> batches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final int maxBatchSize;
+    private final long maxWaitMillis;
+
+    @Autowired
+    private TicketPoolService ticketPoolService;
+    @Autowired
+    private PurchaseRetryPolicy retryPolicy;
+
+    public PurchasePipeline(ThreadFactory workerThreadFactory,
+                            @Value("${ticketin.purchase.batch.threads:4}") int threads,
+                            @Value("${ticketin.purchase.batch.max-size:200}") int maxBatchSize,
+                            @Value("${ticketin.purchase.batch.max-wait-ms:2}") long maxWaitMillis) {
+        this.executor = Executors.newScheduledThreadPool(threads, workerThreadFactory);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public CompletableFuture<Long> submit(Long eventItemId, Customer customer) {
+        // Queue a purchase for the event. The batch is drained as soon as it is full, or after the max wait at the latest.
+        EventBatch batch = batches.computeIfAbsent(eventItemId, EventBatch::new);
+        PendingPurchase purchase = new PendingPurchase(customer);
+        enqueue(batch, purchase);
+        return purchase.result;
+    }
+
+    private void enqueue(EventBatch batch, PendingPurchase purchase) {
+        batch.queue.offer(purchase);
+        if (batch.size.incrementAndGet() >= maxBatchSize) {
+            executor.execute(() -> drain(batch));
+        } else if (batch.scheduled.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                batch.scheduled.set(false);
+                drain(batch);
+            }, maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain(EventBatch batch) {
+        // Only one thread drains an event at a time; it keeps going until the queue is empty.
+        if (!batch.draining.tryLock()) {
+            return;
+        }
+        try {
+            List<PendingPurchase> purchases;
+            while (!(purchases = take(batch)).isEmpty()) {
+                commit(batch.eventItemId, purchases);
+            }
+        } finally {
+            batch.draining.unlock();
+        }
+        // A purchase may have arrived between the last take and the unlock.
+        if (!batch.queue.isEmpty()) {
+            executor.execute(() -> drain(batch));
+        }
+    }
+
+    private List<PendingPurchase> take(EventBatch batch) {
+        List<PendingPurchase> purchases = new ArrayList<>(Math.min(batch.size.get(), maxBatchSize));
+        PendingPurchase purchase;
+        while (purchases.size() < maxBatchSize && (purchase = batch.queue.poll()) != null) {
+            batch.size.decrementAndGet();
+            purchases.add(purchase);
+        }
+        return purchases;
+    }
+
+    private void commit(Long eventItemId, List<PendingPurchase> purchases) {
+        // Claim and persist the whole batch in one transaction, then complete each caller individually.
+        try {
+            List<Long> ticketIds = ticketPoolService.removeTicketsBatch(eventItemId, purchases.stream().map(p -> p.customer).toList());
+            List<PendingPurchase> unserved = new ArrayList<>();
+            for (int i = 0; i < purchases.size(); i++) {
+                if (ticketIds.get(i) != null) {
+                    purchases.get(i).result.complete(ticketIds.get(i));
+                } else {
+                    unserved.add(purchases.get(i));
+                }
+            }
+            if (!unserved.isEmpty()) {
+                retryOrSoldOut(eventItemId, unserved);
+            }
+        } catch (Exception e) {
+            logger.error("Purchase batch of " + purchases.size() + " failed for event " + eventItemId, e);
+            purchases.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    private void retryOrSoldOut(Long eventItemId, List<PendingPurchase> unserved) {
+        // Buyers left without a ticket are only sold out when no unsold row remains. Otherwise the rows were locked by other
+        // transactions, so each buyer rejoins a later batch after the retry policy's backoff, or fails as a conflict once its budget is spent.
+        if (!ticketPoolService.hasAvailableTickets(eventItemId)) {
+            unserved.forEach(p -> p.result.complete(null));
+            return;
+        }
+        EventBatch batch = batches.computeIfAbsent(eventItemId, EventBatch::new);
+        for (PendingPurchase purchase : unserved) {
+            try {
+                long delay = retryPolicy.backoffMillis(eventItemId, ++purchase.attempts);
+                executor.schedule(() -> enqueue(batch, purchase), delay, TimeUnit.MILLISECONDS);
+            } catch (ConcurrencyFailureException e) {
+                purchase.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class EventBatch {
+        private final Long eventItemId;
+        private final Queue<PendingPurchase> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final ReentrantLock draining = new ReentrantLock();
+
+        private EventBatch(Long eventItemId) {
+            this.eventItemId = eventItemId;
+        }
+    }
+
+    private static class PendingPurchase {
+        private final Customer customer;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        private int attempts;
+
+        private PendingPurchase(Customer customer) {
+            this.customer = customer;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.sameerasw.ticketin.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class PurchaseRetryPolicy {
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public PurchaseRetryPolicy(MeterRegistry meterRegistry,
+                               @Value("${ticketin.purchase.retry.max-attempts:5}") int maxAttempts,
+                               @Value("${ticketin.purchase.retry.base-delay-ms:5}") long baseDelayMillis,
+                               @Value("${ticketin.purchase.retry.max-delay-ms:200}") long maxDelayMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    public void onConflict(Long eventItemId, int attempt) {
+        // Called after a claim lost a race. Backs off with full jitter before the caller picks another ticket, or gives up once the budget is spent.
+        long delay = backoffMillis(eventItemId, attempt);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrencyFailureException("Interrupted while retrying ticket claim for event " + eventItemId, e);
+        }
+    }
+
+    public long backoffMillis(Long eventItemId, int attempt) {
+        // Counts the conflict and returns the jittered delay before the next attempt, for callers that reschedule instead of sleeping.
+        conflictCounter(eventItemId).increment();
+        if (attempt >= maxAttempts) {
+            Counter.builder("ticketin.purchase.retries.exhausted").tag("event", eventItemId.toString()).register(meterRegistry).increment();
+            throw new ConcurrencyFailureException("Ticket claim for event " + eventItemId + " gave up after " + attempt + " conflicts");
+        }
+        Counter.builder("ticketin.purchase.retries").tag("event", eventItemId.toString()).register(meterRegistry).increment();
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private Counter conflictCounter(Long eventItemId) {
+        return Counter.builder("ticketin.purchase.conflicts").tag("event", eventItemId.toString()).register(meterRegistry);
+    }
+}
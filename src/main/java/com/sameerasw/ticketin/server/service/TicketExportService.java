@@ -0,0 +1,89 @@
+package com.sameerasw.ticketin.server.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sameerasw.ticketin.server.dto.TicketExportDTO;
+import com.sameerasw.ticketin.server.repository.TicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.sameerasw.ticketin.cli.Cli.logger;
+
+@Service
+public class TicketExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public TicketExportService(PlatformTransactionManager transactionManager) {
+        // The export cursor only lives as long as its transaction, so the whole write runs inside one read-only transaction.
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void exportNdjson(Long eventItemId, OutputStream out) {
+        // One JSON object per line, written through a single generator so no row is ever held as a string.
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<TicketExportDTO> rows = streamRows(eventItemId);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE))) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                Iterator<TicketExportDTO> iterator = rows.iterator();
+                long count = 0;
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                    if (++count == 1) {
+                        // Send the first row right away so the client sees the download start.
+                        generator.flush();
+                    }
+                }
+                generator.writeRaw('\n');
+                logger.info("Exported " + count + " tickets as NDJSON" + (eventItemId == null ? "" : " for event " + eventItemId));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public void exportCsv(Long eventItemId, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<TicketExportDTO> rows = streamRows(eventItemId);
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                writer.write(TicketExportDTO.CSV_HEADER);
+                writer.write('\n');
+                writer.flush();
+                Iterator<TicketExportDTO> iterator = rows.iterator();
+                long count = 0;
+                while (iterator.hasNext()) {
+                    writer.write(iterator.next().toCsv());
+                    writer.write('\n');
+                    count++;
+                }
+                logger.info("Exported " + count + " tickets as CSV" + (eventItemId == null ? "" : " for event " + eventItemId));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Stream<TicketExportDTO> streamRows(Long eventItemId) {
+        return eventItemId == null ? ticketRepository.streamTicketExport() : ticketRepository.streamTicketExport(eventItemId);
+    }
+}
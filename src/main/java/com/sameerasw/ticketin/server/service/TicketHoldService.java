@@ -0,0 +1,214 @@
+package com.sameerasw.ticketin.server.service;
+
+import com.sameerasw.ticketin.handler.TicketWebSocketHandler;
+import com.sameerasw.ticketin.server.inventory.HashedTimingWheel;
+import com.sameerasw.ticketin.server.inventory.TicketInventory;
+import com.sameerasw.ticketin.server.inventory.TicketInventoryService;
+import com.sameerasw.ticketin.server.model.Customer;
+import com.sameerasw.ticketin.server.notification.EventItemChangedEvent;
+import com.sameerasw.ticketin.server.notification.WalletChangedEvent;
+import com.sameerasw.ticketin.server.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.sameerasw.ticketin.server.Application.*;
+
+@Service
+public class TicketHoldService {
+    private static final Logger logger = LoggerFactory.getLogger(TicketHoldService.class);
+    private static final String EXPIRE_HOLD_SQL = "WITH released AS (UPDATE ticket SET held_by = NULL, held_until = NULL " +
+            "WHERE id = ? AND held_by = ? AND is_sold = false AND held_until <= now() RETURNING event_item_event_id) " + TicketRepository.COUNT_RELEASES;
+    // Releases holds that lapsed a sweep interval ago without being expired, e.g. those of a node that went away
+    private static final String SWEEP_HOLDS_SQL = "WITH released AS (UPDATE ticket SET held_by = NULL, held_until = NULL " +
+            "WHERE is_sold = false AND held_until < now() - ? * interval '1 second' RETURNING id, event_item_event_id), " +
+            "counted AS (" + TicketRepository.COUNT_RELEASES + ") SELECT event_item_event_id, id FROM released";
+
+    private final Map<Long, HashedTimingWheel.Timeout<TicketHold>> holds = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<TicketHold> expiryWheel;
+    private final ScheduledExecutorService sweeper;
+    private final long holdSeconds;
+    private final long sweepSeconds;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+    @Autowired
+    private TicketInventoryService ticketInventoryService;
+    @Autowired
+    private TicketWebSocketHandler webSocketHandler;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public TicketHoldService(ThreadFactory workerThreadFactory,
+                             @Value("${ticketin.hold.ttl-seconds:300}") long holdSeconds,
+                             @Value("${ticketin.hold.tick-ms:100}") long tickMillis,
+                             @Value("${ticketin.hold.wheel-size:512}") int wheelSize,
+                             @Value("${ticketin.hold.sweep-seconds:60}") long sweepSeconds) {
+        this.holdSeconds = holdSeconds;
+        this.sweepSeconds = sweepSeconds;
+        this.expiryWheel = new HashedTimingWheel<>(tickMillis, TimeUnit.MILLISECONDS, wheelSize, runnable -> {
+            Thread thread = new Thread(runnable, "ticket-hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        }, this::expireHolds);
+        this.sweeper = Executors.newScheduledThreadPool(1, workerThreadFactory);
+        sweeper.scheduleWithFixedDelay(this::sweepLapsedHolds, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    public Long holdTicket(Long eventItemId, Customer customer) {
+        // Hold a ticket for the customer. It leaves the event's availability until the hold is confirmed, cancelled or expires.
+        TicketInventory inventory = ticketInventoryService.getInventory(eventItemId);
+        Long ticketId;
+        while ((ticketId = inventory.claim()) != null) {
+            if (ticketRepository.holdTicket(ticketId, customer.getId(), holdSeconds) == 1) {
+                break;
+            }
+        }
+        if (ticketId == null) {
+            ticketId = ticketRepository.holdNextTicket(eventItemId, customer.getId(), holdSeconds);
+        }
+        if (ticketId == null) {
+            logger.info(ANSI_YELLOW + "No tickets available to hold for the event: " + eventItemId + ANSI_RESET);
+            return null;
+        }
+        scheduleExpiry(new TicketHold(eventItemId, ticketId, customer.getId()), Duration.ofSeconds(holdSeconds));
+        eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId));
+        logger.info(ANSI_CYAN + customer.getName() + " - Ticket " + ticketId + " held for event " + eventItemId + " for " + holdSeconds + "s" + ANSI_RESET);
+        return ticketId;
+    }
+
+    public boolean confirmHold(Long ticketId, Customer customer) {
+        // Finalise the sale of a held ticket. Fails once the hold has expired, even if the expiry has not been processed yet.
+        if (ticketRepository.confirmHold(ticketId, customer.getId()) == 0) {
+            return false;
+        }
+        Long eventItemId = removeHold(ticketId);
+        webSocketHandler.sendMessageToEvent(eventItemId, "Ticket (" + ticketId + ") was purchased by " + customer.getName());
+        eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId));
+        eventPublisher.publishEvent(new WalletChangedEvent(customer.getId()));
+        logger.info(ANSI_GREEN + customer.getName() + " - Held ticket " + ticketId + " purchased" + ANSI_RESET);
+        return true;
+    }
+
+    public boolean cancelHold(Long ticketId, Customer customer) {
+        if (ticketRepository.releaseHold(ticketId, customer.getId()) == 0) {
+            return false;
+        }
+        Long eventItemId = removeHold(ticketId);
+        ticketInventoryService.getInventory(eventItemId).add(ticketId);
+        eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId));
+        return true;
+    }
+
+    public long getHoldSeconds() {
+        return holdSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescheduleActiveHolds() {
+        // Holds outlive a restart in the database, so their expiry is put back on the wheel. Lapsed ones are released on the next tick.
+        List<Object[]> activeHolds = ticketRepository.findActiveHolds();
+        for (Object[] row : activeHolds) {
+            Duration remaining = Duration.between(Instant.now(), (Instant) row[3]);
+            scheduleExpiry(new TicketHold((Long) row[0], (Long) row[1], (Long) row[2]), remaining.isNegative() ? Duration.ZERO : remaining);
+        }
+        logger.info("Rescheduled expiry of " + activeHolds.size() + " ticket holds");
+    }
+
+    private void scheduleExpiry(TicketHold hold, Duration delay) {
+        // A ticket held again before its previous expiry ran keeps only the newest timeout.
+        HashedTimingWheel.Timeout<TicketHold> replaced = holds.put(hold.ticketId(), expiryWheel.schedule(hold, delay.toMillis(), TimeUnit.MILLISECONDS));
+        if (replaced != null) {
+            replaced.cancel();
+        }
+    }
+
+    private Long removeHold(Long ticketId) {
+        // Cancels the local expiry and returns the held ticket's event. Holds placed through another node have no local timeout,
+        // so their event is looked up instead.
+        HashedTimingWheel.Timeout<TicketHold> timeout = holds.remove(ticketId);
+        if (timeout == null) {
+            return ticketRepository.findEventItemIdById(ticketId);
+        }
+        timeout.cancel();
+        return timeout.getItem().eventItemId();
+    }
+
+    private void expireHolds(List<TicketHold> expired) {
+        // Runs on the wheel thread once per tick with every hold due in that tick, releasing them in one JDBC batch.
+        List<Object[]> args = new ArrayList<>(expired.size());
+        for (TicketHold hold : expired) {
+            args.add(new Object[]{hold.ticketId(), hold.customerId()});
+        }
+        int[] released = jdbcTemplate.batchUpdate(EXPIRE_HOLD_SQL, args);
+        Set<Long> changedEvents = new HashSet<>();
+        for (int i = 0; i < expired.size(); i++) {
+            TicketHold hold = expired.get(i);
+            holds.computeIfPresent(hold.ticketId(), (ticketId, timeout) -> timeout.getItem() == hold ? null : timeout);
+            if (released[i] == 1) {
+                returnExpired(hold.eventItemId(), hold.ticketId(), changedEvents);
+            }
+        }
+        changedEvents.forEach(eventItemId -> eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId)));
+        logger.info("Expired " + expired.size() + " ticket holds");
+    }
+
+    private void sweepLapsedHolds() {
+        // Backstop for holds no node has a timeout for. Lapsed holds stay out of sale until released, so none may be left behind.
+        try {
+            List<Long[]> released = jdbcTemplate.query(SWEEP_HOLDS_SQL, (rs, rowNum) -> new Long[]{rs.getLong(1), rs.getLong(2)}, sweepSeconds);
+            Set<Long> changedEvents = new HashSet<>();
+            for (Long[] row : released) {
+                HashedTimingWheel.Timeout<TicketHold> timeout = holds.remove(row[1]);
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+                returnExpired(row[0], row[1], changedEvents);
+            }
+            changedEvents.forEach(eventItemId -> eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId)));
+            if (!released.isEmpty()) {
+                logger.info("Released " + released.size() + " lapsed ticket holds");
+            }
+        } catch (Exception e) {
+            // An exception would cancel the repeating task, so it is logged and the next sweep tries again.
+            logger.warn("Failed to sweep lapsed ticket holds: {}", e.getMessage());
+        }
+    }
+
+    private void returnExpired(Long eventItemId, Long ticketId, Set<Long> changedEvents) {
+        ticketInventoryService.getInventory(eventItemId).add(ticketId);
+        webSocketHandler.sendMessageToEvent(eventItemId, "Hold on ticket (" + ticketId + ") expired");
+        changedEvents.add(eventItemId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        expiryWheel.stop();
+        sweeper.shutdown();
+    }
+
+    private record TicketHold(Long eventItemId, Long ticketId, Long customerId) {
+    }
+}
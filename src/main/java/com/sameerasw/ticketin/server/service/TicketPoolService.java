@@ -1,62 +1,213 @@
 package com.sameerasw.ticketin.server.service;
 
 import com.sameerasw.ticketin.handler.TicketWebSocketHandler;
+import com.sameerasw.ticketin.server.inventory.TicketInventory;
+import com.sameerasw.ticketin.server.inventory.TicketInventoryService;
 import com.sameerasw.ticketin.server.model.Customer;
-import com.sameerasw.ticketin.server.model.Ticket;
 import com.sameerasw.ticketin.server.model.TicketPool;
+import com.sameerasw.ticketin.server.notification.EventItemChangedEvent;
+import com.sameerasw.ticketin.server.notification.WalletChangedEvent;
 import com.sameerasw.ticketin.server.repository.TicketPoolRepository;
+import com.sameerasw.ticketin.server.repository.TicketRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static com.sameerasw.ticketin.cli.Cli.logger;
 import static com.sameerasw.ticketin.server.Application.*;
 
 @Service
 public class TicketPoolService {
-    private final Lock lock = new ReentrantLock();
+    private static final String CLAIM_TICKET_SQL = "UPDATE ticket SET is_sold = true, customer_id = ?, held_by = NULL, held_until = NULL, version = version + 1 " +
+            "WHERE id = ? AND " + TicketRepository.AVAILABLE;
+
+    @Autowired
+    private TicketInventoryService ticketInventoryService;
     @Autowired
     private TicketPoolRepository ticketPoolRepository;
     @Autowired
-    private TicketService ticketService;
+    private TicketRepository ticketRepository;
     @Autowired
     private TicketWebSocketHandler webSocketHandler;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PurchaseRetryPolicy retryPolicy;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillCounters() {
+        // Pools created before the available/sold counters existed get them computed once from their tickets.
+        int backfilled = ticketPoolRepository.backfillCounters();
+        if (backfilled > 0) {
+            logger.info("Ticket pool counters backfilled for " + backfilled + " pools");
+        }
+    }
 
     public TicketPool createTicketPool(TicketPool ticketPool) {
         return ticketPoolRepository.save(ticketPool);
     }
 
     public TicketPool getTicketPoolByEventItemId(Long eventItemId) {
-        return ticketPoolRepository.findByEventItemIdAndTicketsIsSoldFalse(eventItemId);
-    }
-
-    public void removeTicket(Long eventItemId, Customer customer) {
-        // Remove ticket from the ticket pool. ReentrantLock is used to avoid multiple threads accessing the same ticket pool from customer purchases.
-        lock.lock();
-        try {
-            TicketPool ticketPool = ticketPoolRepository.findByEventItemIdAndTicketsIsSoldFalse(eventItemId);
-            if (ticketPool != null && ticketPool.getAvailableTickets() > 0) {
-                Ticket ticket = ticketPool.getTickets().stream().filter(Ticket::isAvailable).findFirst().orElse(null);
-                if (ticket != null) {
-                    ticket.sellTicket();
-                    ticket.setCustomer(customer);
-                    ticketService.saveTicket(ticket);
-                    logger.info(ANSI_GREEN + customer.getName() + " - Ticket " + ticket.getId() + " purchased for " + ticketPool.getEventName() + " remaining tickets: " + ticketPool.getAvailableTickets() + ANSI_RESET);
-                    webSocketHandler.sendMessageToEvent(eventItemId, "Ticket (" + ticket.getId() + ") was purchased by " + customer.getName());
-                } else {
-                    logger.info(ANSI_YELLOW + "No tickets available for the event: " + ticketPool.getEventName() + ANSI_RESET);
+        return ticketPoolRepository.findByEventItemId(eventItemId);
+    }
+
+    public Long getChangeVersion(Long eventItemId) {
+        return ticketPoolRepository.findChangeVersion(eventItemId);
+    }
+
+    public boolean hasAvailableTickets(Long eventItemId) {
+        return ticketRepository.existsAvailableTicket(eventItemId);
+    }
+
+    public int getAvailableTickets(Long eventItemId) {
+        // The pool's counter, not this node's inventory, so every node and every client sees the same count.
+        Integer availableTickets = ticketPoolRepository.findAvailableTickets(eventItemId);
+        return availableTickets == null ? 0 : availableTickets;
+    }
+
+    public Long removeTicket(Long eventItemId, Customer customer) {
+        // Remove ticket from the ticket pool. Each claim is a single conditional UPDATE, so no JVM lock is needed and several nodes can sell the same event without overselling.
+        TicketInventory inventory = ticketInventoryService.getInventory(eventItemId);
+        Long ticketId = claimTicket(inventory, eventItemId, customer);
+        if (ticketId == null) {
+            logger.info(ANSI_YELLOW + "No tickets available for the event: " + eventItemId + ANSI_RESET);
+            return null;
+        }
+        logger.info(ANSI_GREEN + customer.getName() + " - Ticket " + ticketId + " purchased for event " + eventItemId + " remaining tickets: " + inventory.getAvailableTickets() + ANSI_RESET);
+        webSocketHandler.sendMessageToEvent(eventItemId, "Ticket (" + ticketId + ") was purchased by " + customer.getName());
+        eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId));
+        eventPublisher.publishEvent(new WalletChangedEvent(customer.getId()));
+        return ticketId;
+    }
+
+    private Long claimTicket(TicketInventory inventory, Long eventItemId, Customer customer) {
+        // Try the IDs this node knows are free first, then any unsold row of the event. A local ID that updates no row was sold or held
+        // elsewhere; that is a stale entry, not contention, so it is skipped straight away. Only buyers locked out of unsold rows back off.
+        int attempt = 0;
+        while (true) {
+            Long ticketId = inventory.claim();
+            if (ticketId != null) {
+                if (ticketRepository.claimTicket(ticketId, customer.getId()) == 1) {
+                    return ticketId;
                 }
+                continue;
             }
-        } finally {
-            lock.unlock();
+            // The local inventory is empty, but another node may have released tickets this node has not seen.
+            ticketId = ticketRepository.claimNextTicket(eventItemId, customer.getId());
+            if (ticketId != null || !ticketRepository.existsAvailableTicket(eventItemId)) {
+                return ticketId;
+            }
+            // Unsold rows exist but are all locked by other buyers' transactions.
+            retryPolicy.onConflict(eventItemId, ++attempt);
+        }
+    }
+
+    @Transactional
+    public List<Long> removeTickets(Long eventItemId, Customer customer, int ticketCount, boolean allOrNothing) {
+        // Claim several tickets for one customer in a single transaction. Local inventory IDs are claimed in one UPDATE, any shortfall is topped up with SKIP LOCKED.
+        TicketInventory inventory = ticketInventoryService.getInventory(eventItemId);
+        List<Long> candidates = inventory.claim(ticketCount);
+        List<Long> ticketIds = new ArrayList<>(candidates.isEmpty() ? List.of() : ticketRepository.claimTickets(candidates, customer.getId()));
+        ticketInventoryService.returnOnRollback(eventItemId, ticketIds);
+        int attempt = 0;
+        while (ticketIds.size() < ticketCount) {
+            List<Long> toppedUp = ticketRepository.claimNextTickets(eventItemId, customer.getId(), ticketCount - ticketIds.size());
+            ticketInventoryService.returnOnRollback(eventItemId, toppedUp);
+            ticketIds.addAll(toppedUp);
+            if (ticketIds.size() == ticketCount || (!allOrNothing && !ticketIds.isEmpty()) || !ticketRepository.existsAvailableTicket(eventItemId)) {
+                break;
+            }
+            // Short only because other buyers hold the remaining unsold rows locked, which is contention, not a sell-out.
+            // Once the retries run out the policy throws, the claims above roll back and the caller answers with Retry-After.
+            retryPolicy.onConflict(eventItemId, ++attempt);
+        }
+        if (ticketIds.isEmpty() || (allOrNothing && ticketIds.size() < ticketCount)) {
+            // Not enough tickets, so roll back every claim made above.
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            logger.info(ANSI_YELLOW + "Not enough tickets available for the event: " + eventItemId + " requested: " + ticketCount + ANSI_RESET);
+            return List.of();
+        }
+        ticketPoolRepository.adjustCounters(eventItemId, -ticketIds.size(), ticketIds.size());
+        eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId));
+        eventPublisher.publishEvent(new WalletChangedEvent(customer.getId()));
+        AfterCommit.run(() -> {
+            logger.info(ANSI_GREEN + customer.getName() + " - " + ticketIds.size() + " tickets " + ticketIds + " purchased for event " + eventItemId + " remaining tickets: " + inventory.getAvailableTickets() + ANSI_RESET);
+            webSocketHandler.sendMessageToEvent(eventItemId, ticketIds.size() + " tickets " + ticketIds + " were purchased by " + customer.getName());
+        });
+        return ticketIds;
+    }
+
+    @Transactional
+    public List<Long> removeTicketsBatch(Long eventItemId, List<Customer> customers) {
+        // Sell one ticket to each customer of a micro-batch in a single transaction. Returns the ticket ID per customer, null where the event sold out.
+        TicketInventory inventory = ticketInventoryService.getInventory(eventItemId);
+        Long[] ticketIds = new Long[customers.size()];
+        List<Integer> pending = new ArrayList<>(customers.size());
+        for (int i = 0; i < customers.size(); i++) {
+            pending.add(i);
         }
+        List<Long> candidates = inventory.claim(pending.size());
+        ticketInventoryService.returnOnRollback(eventItemId, candidates);
+        pending = assignTickets(customers, pending, candidates, ticketIds);
+        if (!pending.isEmpty()) {
+            // Top up from rows this node has not seen; they are locked by this transaction, so their updates cannot miss.
+            List<Long> lockedIds = ticketRepository.lockNextAvailableTicketIds(eventItemId, pending.size());
+            ticketInventoryService.returnOnRollback(eventItemId, lockedIds);
+            pending = assignTickets(customers, pending, lockedIds, ticketIds);
+        }
+        int sold = customers.size() - pending.size();
+        if (sold > 0) {
+            ticketPoolRepository.adjustCounters(eventItemId, -sold, sold);
+            eventPublisher.publishEvent(new EventItemChangedEvent(eventItemId));
+        }
+        for (int i = 0; i < customers.size(); i++) {
+            if (ticketIds[i] != null) {
+                eventPublisher.publishEvent(new WalletChangedEvent(customers.get(i).getId()));
+            }
+        }
+        int unserved = pending.size();
+        AfterCommit.run(() -> {
+            for (int i = 0; i < customers.size(); i++) {
+                if (ticketIds[i] != null) {
+                    webSocketHandler.sendMessageToEvent(eventItemId, "Ticket (" + ticketIds[i] + ") was purchased by " + customers.get(i).getName());
+                }
+            }
+            logger.info(ANSI_GREEN + sold + " tickets purchased in one batch for event " + eventItemId + " remaining tickets: " + inventory.getAvailableTickets() + ANSI_RESET);
+            if (unserved > 0) {
+                logger.info(ANSI_YELLOW + "No tickets available for " + unserved + " buyers of the event: " + eventItemId + ANSI_RESET);
+            }
+        });
+        return Arrays.asList(ticketIds);
     }
 
-    public void addTicket(TicketPool ticketPool, Ticket ticket) {
-        if (ticketPool.getAvailableTickets() < ticketPool.getMaxPoolSize()) {
-            ticketPool.getTickets().add(ticket);
+    private List<Integer> assignTickets(List<Customer> customers, List<Integer> pending, List<Long> candidates, Long[] ticketIds) {
+        // Pair pending buyers with candidate tickets and sell them in one JDBC batch. Buyers whose ticket was sold elsewhere stay pending.
+        int count = Math.min(pending.size(), candidates.size());
+        List<Object[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            args.add(new Object[]{customers.get(pending.get(i)).getId(), candidates.get(i)});
+        }
+        int[] updated = count == 0 ? new int[0] : jdbcTemplate.batchUpdate(CLAIM_TICKET_SQL, args);
+        List<Integer> stillPending = new ArrayList<>(pending.subList(count, pending.size()));
+        for (int i = 0; i < count; i++) {
+            if (updated[i] == 1) {
+                ticketIds[pending.get(i)] = candidates.get(i);
+            } else {
+                stillPending.add(pending.get(i));
+            }
         }
+        return stillPending;
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,14 @@
 package com.sameerasw.ticketin.server.service;
 
+import com.sameerasw.ticketin.server.dto.KeysetPage;
+import com.sameerasw.ticketin.server.dto.TicketDTO;
 import com.sameerasw.ticketin.server.model.Ticket;
 import com.sameerasw.ticketin.server.repository.TicketRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 @Transactional
 public class TicketService {
@@ -16,19 +16,15 @@ public class TicketService {
     private TicketRepository ticketRepository;
 
     public Ticket saveTicket(Ticket ticket) {
-        try {
-            Ticket savedTicket = ticketRepository.save(ticket);
-            return savedTicket;
-        } catch (OptimisticLockingFailureException e) {
-            throw new RuntimeException("Ticket update failed due to concurrent modification", e);
-        }
+        // A concurrent modification surfaces as OptimisticLockingFailureException, so callers can tell a lost race from a real error.
+        return ticketRepository.save(ticket);
     }
 
-    public List<Ticket> getTicketsByEventId(Long eventItemId) {
-        return ticketRepository.findByEventItemId(eventItemId);
+    public KeysetPage<TicketDTO> getTicketsByEventId(Long eventItemId, long afterId, int size) {
+        return KeysetPage.of(ticketRepository.findEventTicketPage(eventItemId, afterId, Limit.of(size + 1)), size, ticket -> Long.valueOf(ticket.getTicketId()));
     }
 
-    public List<Ticket> getAllTickets() {
-        return ticketRepository.findAll();
+    public KeysetPage<TicketDTO> getAllTickets(long afterId, int size) {
+        return KeysetPage.of(ticketRepository.findTicketPage(afterId, Limit.of(size + 1)), size, ticket -> Long.valueOf(ticket.getTicketId()));
     }
 }
\ No newline at end of file
@@ -1,21 +1,27 @@
 package com.sameerasw.ticketin.server.service;
 
 import com.sameerasw.ticketin.handler.TicketWebSocketHandler;
+import com.sameerasw.ticketin.server.inventory.TicketInventoryService;
 import com.sameerasw.ticketin.server.model.EventItem;
 import com.sameerasw.ticketin.server.model.Ticket;
 import com.sameerasw.ticketin.server.model.TicketPool;
 import com.sameerasw.ticketin.server.model.Vendor;
+import com.sameerasw.ticketin.server.notification.EventItemChangedEvent;
 import com.sameerasw.ticketin.server.repository.EventRepository;
 import com.sameerasw.ticketin.server.repository.TicketPoolRepository;
-import com.sameerasw.ticketin.server.repository.TicketRepository;
 import com.sameerasw.ticketin.server.repository.VendorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.sameerasw.ticketin.server.Application.*;
@@ -29,15 +35,19 @@ public class VendorService {
     @Autowired
     private EventRepository eventRepository;
     @Autowired
-    private TicketRepository ticketRepository;
-    @Autowired
-    private TicketPoolService ticketPoolService;
-    @Autowired
     private TicketPoolRepository ticketPoolRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private TicketInventoryService ticketInventoryService;
     @Autowired
     private UserService userService;
     @Autowired
     private TicketWebSocketHandler webSocketHandler;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Value("${ticketin.release.batch-size:1000}")
+    private int releaseBatchSize;
 
     @Transactional
     public Vendor createVendor(Vendor vendor) {
@@ -50,29 +60,64 @@ public class VendorService {
     }
 
     @Transactional
-    public void releaseTickets(Vendor vendor, Long eventId) {
-        // Release a ticket for an event. Checks if the event exists and if the ticket pool is full.
+    public int releaseTickets(Vendor vendor, Long eventId, int ticketCount) {
+        // Release a batch of tickets for an event. Capacity is checked once against the pool counter and all tickets are inserted
+        // as batched inserts in this one transaction. Counts are bounded by the caller; nothing is released for a count below 1.
+        if (ticketCount < 1) {
+            return 0;
+        }
         EventItem eventItem = eventRepository.findById(eventId).orElse(null);
+        if (eventItem == null) {
+            logger.info("Event not found");
+            return 0;
+        }
+        TicketPool ticketPool = eventItem.getTicketPool();
+        if (ticketPool == null) {
+            logger.info("Ticket pool not found");
+            return 0;
+        }
         boolean isSimulated = eventItem.isSimulated();
-        if (eventItem != null) {
-            TicketPool ticketPool = eventItem.getTicketPool();
-            if (ticketPool != null) {
-                if (ticketPool.getAvailableTickets() < ticketPool.getMaxPoolSize() || !isSimulated) {
-                    Ticket ticket = new Ticket(eventItem, isSimulated);
-                    ticketRepository.save(ticket);
-                    ticketPoolService.addTicket(ticketPool, ticket);
-                    ticketPoolRepository.save(ticketPool);
-                    logger.info(ANSI_CYAN + vendor.getName() + " - Released ticket: " + ticket.getId() + " for: " + eventItem.getName() + " remaining tickets: " + ticketPool.getAvailableTickets() + ANSI_RESET);
-                    webSocketHandler.sendMessageToEvent(eventId, "Ticket (" + ticket.getId() + ") was released by " + vendor.getName());
-                } else {
-                    logger.info(ANSI_YELLOW + vendor.getName() + " - Ticket pool is full for: " + eventItem.getName() + ANSI_RESET);
-                }
-            } else {
-                logger.info("Ticket pool not found");
+        int released = ticketCount;
+        if (isSimulated) {
+            released = Math.min(ticketCount, ticketPool.getMaxPoolSize() - ticketPool.getAvailableTickets() - ticketPool.getHeldTickets());
+        }
+        if (released <= 0) {
+            logger.info(ANSI_YELLOW + vendor.getName() + " - Ticket pool is full for: " + eventItem.getName() + ANSI_RESET);
+            return 0;
+        }
+
+        long startedAt = System.nanoTime();
+        List<Long> ticketIds = insertTickets(eventItem, isSimulated, released);
+        ticketPoolRepository.adjustCounters(eventId, released, 0);
+        eventPublisher.publishEvent(new EventItemChangedEvent(eventId));
+        ticketInventoryService.addAfterCommit(eventId, ticketIds);
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        int count = released;
+        String eventName = eventItem.getName();
+        AfterCommit.run(() -> {
+            logger.info(ANSI_CYAN + vendor.getName() + " - Released " + count + " tickets for: " + eventName + " in " + elapsedMs + " ms (" + count * 1000L / elapsedMs + " tickets/s)" + ANSI_RESET);
+            webSocketHandler.sendMessageToEvent(eventId, count == 1
+                    ? "Ticket (" + ticketIds.get(0) + ") was released by " + vendor.getName()
+                    : count + " tickets were released by " + vendor.getName());
+        });
+        return released;
+    }
+
+    private List<Long> insertTickets(EventItem eventItem, boolean isSimulated, int count) {
+        // Ids come from the pooled ticket sequence at persist time, so Hibernate can send the inserts as JDBC batches.
+        // Flushing and clearing every releaseBatchSize tickets keeps a 100k release from holding every entity in memory.
+        List<Long> ticketIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Ticket ticket = new Ticket(eventItem, isSimulated);
+            entityManager.persist(ticket);
+            ticketIds.add(ticket.getId());
+            if ((i + 1) % releaseBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
             }
-        } else {
-            logger.info("Event not found");
         }
+        entityManager.flush();
+        return ticketIds;
     }
 
     public List<Vendor> getAllVendors(boolean isSimulated) {
@@ -0,0 +1,67 @@
+package com.sameerasw.ticketin.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sameerasw.ticketin.server.dto.KeysetPage;
+import com.sameerasw.ticketin.server.dto.TicketDTO;
+import com.sameerasw.ticketin.server.notification.WalletChangedEvent;
+import com.sameerasw.ticketin.server.repository.CustomerRepository;
+import com.sameerasw.ticketin.server.repository.TicketRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+@Service
+public class WalletService {
+    // Only the first page is cached: it is what the "My tickets" page loads, and it keeps one bounded entry per customer.
+    private final Cache<Long, KeysetPage<TicketDTO>> firstPages;
+    private final int firstPageSize;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    public WalletService(MeterRegistry meterRegistry,
+                         @Value("${ticketin.pagination.default-size:50}") int firstPageSize,
+                         @Value("${ticketin.wallet.max-size:10000}") long maxSize,
+                         @Value("${ticketin.wallet.ttl-seconds:60}") long ttlSeconds) {
+        this.firstPageSize = firstPageSize;
+        this.firstPages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, firstPages, "customer-wallet");
+    }
+
+    public KeysetPage<TicketDTO> getWallet(Long customerId, long afterId, int size) {
+        // Returns null for an unknown customer. The first page is loaded through the cache, so an invalidation that arrives while
+        // it is being read waits for the load and then drops it, instead of being overwritten by the stale page.
+        if (afterId == 0 && size == firstPageSize) {
+            return firstPages.get(customerId, id -> loadWallet(id, 0, size));
+        }
+        return loadWallet(customerId, afterId, size);
+    }
+
+    private KeysetPage<TicketDTO> loadWallet(Long customerId, long afterId, int size) {
+        // The existence check only runs when the page comes back empty; a null result is not cached.
+        KeysetPage<TicketDTO> page = KeysetPage.of(ticketRepository.findWalletPage(customerId, afterId, Limit.of(size + 1)), size,
+                ticket -> Long.valueOf(ticket.getTicketId()));
+        if (page.getItems().isEmpty() && !customerRepository.existsById(customerId)) {
+            return null;
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWalletChanged(WalletChangedEvent event) {
+        firstPages.invalidate(event.getCustomerId());
+    }
+}
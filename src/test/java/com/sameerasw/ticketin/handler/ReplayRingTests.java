@@ -0,0 +1,66 @@
+package com.sameerasw.ticketin.handler;
+
+import com.sameerasw.ticketin.server.dto.ActivityDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayRingTests {
+
+    @Test
+    void growsWithoutLosingMessages() {
+        // 40 messages take the array through 16 and 32 entries to 64; every seq must still be replayable.
+        ReplayRing ring = new ReplayRing(100);
+        for (int i = 1; i <= 40; i++) {
+            assertEquals(i, ring.append("message " + i, i).getSeq());
+        }
+        assertEquals(40, ring.getLastSeq());
+        List<ActivityDTO> all = ring.since(0);
+        assertEquals(40, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(i + 1, all.get(i).getSeq());
+            assertEquals("message " + (i + 1), all.get(i).getMessage());
+        }
+    }
+
+    @Test
+    void wrapsAroundAtCapacity() {
+        ReplayRing ring = new ReplayRing(20);
+        for (int i = 1; i <= 55; i++) {
+            ring.append("message " + i, i);
+        }
+        List<ActivityDTO> missed = ring.since(40);
+        assertEquals(15, missed.size());
+        for (int i = 0; i < missed.size(); i++) {
+            assertEquals(41 + i, missed.get(i).getSeq());
+            assertEquals("message " + (41 + i), missed.get(i).getMessage());
+        }
+        assertEquals(20, ring.since(35).size());
+        assertTrue(ring.since(55).isEmpty());
+    }
+
+    @Test
+    void sinceIsNullOnceTheGapIsOverwritten() {
+        ReplayRing ring = new ReplayRing(20);
+        for (int i = 1; i <= 55; i++) {
+            ring.append("message " + i, i);
+        }
+        // Seqs 36..55 are held, so a client that last saw 34 has lost seq 35 and needs a snapshot.
+        assertNull(ring.since(34));
+        assertNull(ring.since(0));
+        assertNull(ring.since(56));
+        assertNull(ring.since(-1));
+    }
+
+    @Test
+    void emptyRingHasNothingToReplay() {
+        ReplayRing ring = new ReplayRing(20);
+        assertEquals(0, ring.getLastSeq());
+        assertTrue(ring.since(0).isEmpty());
+        assertNull(ring.since(1));
+    }
+}
@@ -0,0 +1,68 @@
+package com.sameerasw.ticketin.server.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long BASELINE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limitShrinksWhileLatencyRisesAndRecoversAfterwards() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 100, 5, 200, meterRegistry);
+        sample(limiter, BASELINE_RTT, 50);
+        double steady = limiter.getLimit();
+
+        // Latency four times the baseline pins the gradient at 0.5, so the limit drops towards its queue allowance.
+        sample(limiter, 4 * BASELINE_RTT, 50);
+        double congested = limiter.getLimit();
+        assertTrue(congested < steady / 2, "limit " + congested + " should have dropped well below " + steady);
+        assertTrue(congested >= 5);
+
+        sample(limiter, BASELINE_RTT, 200);
+        assertTrue(limiter.getLimit() > congested * 2, "limit " + limiter.getLimit() + " should have recovered from " + congested);
+        assertTrue(limiter.getLimit() <= 200);
+    }
+
+    @Test
+    void droppedRequestsBackOffDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 20, 5, 200, meterRegistry);
+        assertTrue(limiter.tryAcquire());
+        limiter.release(BASELINE_RTT, true);
+        assertEquals(18, limiter.getLimit(), 0.001);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(BASELINE_RTT, true);
+        }
+        assertEquals(5, limiter.getLimit(), 0.001);
+    }
+
+    @Test
+    void requestsOverTheLimitAreRejected() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, meterRegistry);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, meterRegistry.get("ticketin.limiter.rejected").tag("endpoint", "test").counter().count(), 0.001);
+
+        limiter.release(BASELINE_RTT, false);
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    private void sample(AdaptiveConcurrencyLimiter limiter, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(rttNanos, false);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.sameerasw.ticketin.server.inventory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTests {
+
+    private final Map<String, Long> expiredAt = new ConcurrentHashMap<>();
+    private final CountDownLatch expiries = new CountDownLatch(2);
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, TimeUnit.MILLISECONDS, 4, Thread.ofVirtual().factory(), this::expire);
+
+    @AfterEach
+    void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    void timeoutsSpanningSeveralRoundsExpireOnlyAtTheirDeadline() throws InterruptedException {
+        // Four 10 ms buckets make a 40 ms round, so a 150 ms timeout passes its bucket three times before it is due.
+        long scheduledAt = System.nanoTime();
+        wheel.schedule("short", 15, TimeUnit.MILLISECONDS);
+        wheel.schedule("long", 150, TimeUnit.MILLISECONDS);
+
+        assertTrue(expiries.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(expiredAt.get("short") - scheduledAt) >= 10);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(expiredAt.get("long") - scheduledAt) >= 140);
+        assertTrue(expiredAt.get("long") > expiredAt.get("short"));
+    }
+
+    @Test
+    void cancelledTimeoutsNeverExpire() throws InterruptedException {
+        HashedTimingWheel.Timeout<String> beforeTransfer = wheel.schedule("cancelled-early", 30, TimeUnit.MILLISECONDS);
+        beforeTransfer.cancel();
+        HashedTimingWheel.Timeout<String> inBucket = wheel.schedule("cancelled-late", 100, TimeUnit.MILLISECONDS);
+        wheel.schedule("kept", 150, TimeUnit.MILLISECONDS);
+        // By now the worker has moved the 100 ms timeout into its bucket, so this cancel is seen there rather than in the queue.
+        Thread.sleep(40);
+        inBucket.cancel();
+
+        assertFalse(expiries.await(400, TimeUnit.MILLISECONDS));
+        assertEquals(1, expiredAt.size());
+        assertTrue(expiredAt.containsKey("kept"));
+        assertEquals("cancelled-late", inBucket.getItem());
+    }
+
+    private void expire(List<String> items) {
+        long now = System.nanoTime();
+        for (String item : items) {
+            expiredAt.put(item, now);
+            expiries.countDown();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.sameerasw.ticketin.server.inventory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketInventoryTests {
+
+    private static final int SEGMENT_SLOTS = 256 * Long.SIZE;
+
+    @Test
+    void claimsAcrossWordAndSegmentBoundaries() {
+        // Two full segments plus a partial word, claimed in odd-sized chunks that straddle every boundary.
+        TicketInventory inventory = new TicketInventory(1L);
+        int tickets = 2 * SEGMENT_SLOTS + 10;
+        for (long id = 1000; id < 1000 + tickets; id++) {
+            inventory.add(id);
+        }
+        assertEquals(tickets, inventory.getAvailableTickets());
+
+        Set<Long> claimed = new HashSet<>();
+        List<Long> first = inventory.claim(70);
+        assertEquals(70, first.size());
+        claimed.addAll(first);
+        List<Long> acrossSegment = inventory.claim(SEGMENT_SLOTS);
+        assertEquals(SEGMENT_SLOTS, acrossSegment.size());
+        claimed.addAll(acrossSegment);
+        List<Long> rest = inventory.claim(tickets);
+        assertEquals(tickets - 70 - SEGMENT_SLOTS, rest.size());
+        claimed.addAll(rest);
+
+        assertEquals(tickets, claimed.size());
+        assertEquals(1000L, Collections.min(claimed));
+        assertEquals(1000L + tickets - 1, Collections.max(claimed));
+        assertEquals(0, inventory.getAvailableTickets());
+        assertEquals(0, inventory.countAvailableSlots());
+        assertTrue(inventory.claim(1).isEmpty());
+        assertNull(inventory.claim());
+    }
+
+    @Test
+    void addingTheSameTicketTwiceCountsItOnce() {
+        TicketInventory inventory = new TicketInventory(1L);
+        inventory.add(5L);
+        inventory.add(5L);
+        assertEquals(1, inventory.getAvailableTickets());
+        assertEquals(1, inventory.countAvailableSlots());
+
+        assertEquals(5L, inventory.claim());
+        inventory.add(5L);
+        inventory.add(5L);
+        assertEquals(1, inventory.getAvailableTickets());
+        assertEquals(List.of(5L), inventory.claim(10));
+        assertEquals(0, inventory.countAvailableSlots());
+    }
+
+    @Test
+    void outOfOrderTicketsStartNewRuns() {
+        // Gaps and IDs below earlier runs each start a run; the slot mapping must round-trip for all of them.
+        TicketInventory inventory = new TicketInventory(1L);
+        long[] ids = {500, 501, 502, 100, 101, 900, 503, 50, 102, 1_000_000};
+        for (long id : ids) {
+            inventory.add(id);
+        }
+        assertEquals(ids.length, inventory.getAvailableTickets());
+        Set<Integer> slots = new HashSet<>();
+        for (long id : ids) {
+            int slot = inventory.slotOf(id);
+            assertTrue(slot >= 0);
+            assertTrue(slots.add(slot));
+            assertEquals(id, inventory.ticketIdOf(slot));
+        }
+        assertEquals(-1, inventory.slotOf(99L));
+        assertEquals(-1, inventory.slotOf(504L));
+
+        List<Long> claimed = new ArrayList<>(inventory.claim(ids.length));
+        Collections.sort(claimed);
+        assertEquals(List.of(50L, 100L, 101L, 102L, 500L, 501L, 502L, 503L, 900L, 1_000_000L), claimed);
+    }
+
+    @Test
+    void counterMatchesBitsAfterConcurrentClaimsAndAdds() throws Exception {
+        // Buyers claim while returns put tickets back; afterwards the running counter must agree with the bits.
+        TicketInventory inventory = new TicketInventory(1L);
+        int tickets = SEGMENT_SLOTS + 500;
+        for (long id = 1; id <= tickets; id++) {
+            inventory.add(id);
+        }
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Long> kept = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2000; i++) {
+                        List<Long> claimed = inventory.claim(1 + (i + thread) % 5);
+                        for (int j = 0; j < claimed.size(); j++) {
+                            if (j % 2 == 0) {
+                                inventory.add(claimed.get(j));
+                            } else {
+                                kept.add(claimed.get(j));
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(inventory.countAvailableSlots(), inventory.getAvailableTickets());
+        assertEquals(tickets - kept.size(), inventory.getAvailableTickets());
+        assertEquals(kept.size(), new HashSet<>(kept).size());
+    }
+}
@@ -0,0 +1,115 @@
+package com.sameerasw.ticketin.server.repository;
+
+import com.sameerasw.ticketin.server.dto.EventItemDTO;
+import com.sameerasw.ticketin.server.model.EventItem;
+import com.sameerasw.ticketin.server.model.TicketPool;
+import com.sameerasw.ticketin.server.model.Vendor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ContextConfiguration(classes = EventRepositoryTests.RepositoryTestConfig.class)
+class EventRepositoryTests {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private TicketPoolRepository ticketPoolRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    // Application's explicit @ComponentScan would pull every service into the JPA slice, so the slice gets its own configuration.
+    // It is a plain class, not a @Configuration, so that same scan does not register the repositories a second time in other tests.
+    @EntityScan(basePackageClasses = EventItem.class)
+    @EnableJpaRepositories(basePackageClasses = EventRepository.class)
+    static class RepositoryTestConfig {
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void catalogPageIssuesTwoStatementsRegardlessOfEventCount() {
+        Vendor vendor = entityManager.persist(new Vendor("Vendor", "vendor@ticketin.test", "password"));
+        createEvents(vendor, 5);
+        assertEquals(2, countCatalogPageStatements(5));
+
+        createEvents(vendor, 45);
+        assertEquals(2, countCatalogPageStatements(50));
+    }
+
+    @Test
+    void catalogEntryCarriesVendorAndAvailableCount() {
+        Vendor vendor = entityManager.persist(new Vendor("Vendor", "vendor@ticketin.test", "password"));
+        EventItem eventItem = createEvents(vendor, 1).get(0);
+        ticketPoolRepository.adjustCounters(eventItem.getId(), 7, 0);
+        entityManager.clear();
+
+        EventItemDTO dto = eventRepository.findCatalogEntry(eventItem.getId()).orElseThrow();
+        assertEquals(eventItem.getId(), dto.getId());
+        assertEquals("Event 0", dto.getEventName());
+        assertEquals(vendor.getId(), dto.getVendorId());
+        assertEquals("Vendor", dto.getVendorName());
+        assertEquals(7, dto.getAvailableTickets());
+    }
+
+    @Test
+    void vendorEventsArePagedAfterTheCursor() {
+        Vendor vendor = entityManager.persist(new Vendor("Vendor", "vendor@ticketin.test", "password"));
+        List<EventItem> eventItems = createEvents(vendor, 5);
+
+        List<EventItemDTO> firstPage = eventRepository.findCatalogEntriesByVendor(vendor.getId(), 0, Limit.of(3));
+        List<EventItemDTO> secondPage = eventRepository.findCatalogEntriesByVendor(vendor.getId(), firstPage.get(2).getEventId(), Limit.of(3));
+        assertEquals(List.of(eventItems.get(0).getId(), eventItems.get(1).getId(), eventItems.get(2).getId()),
+                firstPage.stream().map(EventItemDTO::getEventId).toList());
+        assertEquals(List.of(eventItems.get(3).getId(), eventItems.get(4).getId()),
+                secondPage.stream().map(EventItemDTO::getEventId).toList());
+    }
+
+    private long countCatalogPageStatements(int expectedEvents) {
+        // The two queries EventCatalogService.getAllEvents issues on a cold cache: the page's ids, then their entries
+        entityManager.clear();
+        statistics.clear();
+        List<Long> eventItemIds = eventRepository.findIdsByIsSimulated(false, 0, Limit.of(expectedEvents + 1));
+        assertEquals(expectedEvents, eventRepository.findCatalogEntriesById(eventItemIds).size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<EventItem> createEvents(Vendor vendor, int count) {
+        List<EventItem> eventItems = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            EventItem eventItem = entityManager.persist(new EventItem("Event " + i, "Colombo", "2025-01-01", "18:00", 1500, "Details", "image.png", vendor));
+            eventItem.setTicketPool(entityManager.persist(new TicketPool(100, eventItem)));
+            eventItems.add(eventItem);
+        }
+        entityManager.flush();
+        return eventItems;
+    }
+}